@@ -12,4 +12,22 @@ public class AppConfigProperties {
     private int minSlotDurationMinutes;
     private int maxSlotDurationMinutes;
     private int maxBookingsPerDay;
+    private int idempotencyKeyTtlMinutes;
+    private int idempotencyInProgressTtlSeconds;
+    private int optimisticLockMaxAttempts;
+    private long optimisticLockBackoffMillis;
+    private long optimisticLockMaxBackoffMillis;
+    private int slotHoldTtlSeconds;
+    private int outboxBatchSize;
+    private long outboxRelayIntervalMillis;
+    private long outboxPublishTimeoutMillis;
+    private int providerSlotCacheTtlSeconds;
+    private int slotCacheMaxEntries;
+    private int slotCacheLocalTtlSeconds;
+    private int slotCacheRedisTtlSeconds;
+    private long availabilityIndexRebuildMillis;
+    private int providerIntervalIndexMaxProviders;
+    private int slotTemplateMaxSlots;
+    private long queueLeaseMillis;
+    private long queueLeaseRecoveryMillis;
 }
@@ -0,0 +1,94 @@
+package com.smartappointment.config;
+
+import com.smartappointment.util.enumerations.SlotStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Schema changes that ddl-auto=update does not apply to existing tables.
+// Runs after Hibernate has created or updated the schema and every statement is safe to re-run.
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class DatabaseInitializer implements InitializingBean {
+
+    public static final String SLOT_OVERLAP_CONSTRAINT = "slot_provider_no_overlap";
+    // table -> pooled id sequence, see SequenceIds
+    private static final Map<String, String> ID_SEQUENCES = Map.of(
+            "users", "users_seq",
+            "slot", "slot_seq",
+            "appointment", "appointment_seq",
+            "cancellation_log", "cancellation_log_seq",
+            "outbox_event", "outbox_event_seq");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        syncSlotStatusConstraint();
+        addSlotOverlapConstraint();
+        addSpecializationIndex();
+        ID_SEQUENCES.forEach(this::syncIdSequence);
+    }
+
+    // Hibernate only writes the enum check constraint when it creates the table, so new statuses would be rejected
+    private void syncSlotStatusConstraint() {
+        String statuses = Arrays.stream(SlotStatus.values())
+                .map(status -> "'" + status.name() + "'")
+                .collect(Collectors.joining(","));
+        jdbcTemplate.execute("alter table slot drop constraint if exists slot_status_check");
+        jdbcTemplate.execute("alter table slot add constraint slot_status_check check (status in (" + statuses + "))");
+        log.info("Slot status constraint synced to {}", statuses);
+    }
+
+    // No two non-expired slots of one provider may overlap. The generated tsrange column and its GiST
+    // exclusion constraint make the database the final judge, so concurrent creates cannot both pass the
+    // application check. btree_gist lets the constraint compare provider_id with = inside the GiST index.
+    private void addSlotOverlapConstraint() {
+        try {
+            jdbcTemplate.execute("create extension if not exists btree_gist");
+            jdbcTemplate.execute("alter table slot add column if not exists time_range tsrange " +
+                    "generated always as (tsrange(start_time, end_time, '[)')) stored");
+            Integer existing = jdbcTemplate.queryForObject(
+                    "select count(*) from pg_constraint where conname = ?", Integer.class, SLOT_OVERLAP_CONSTRAINT);
+            if (existing != null && existing > 0) {
+                return;
+            }
+            jdbcTemplate.execute("alter table slot add constraint " + SLOT_OVERLAP_CONSTRAINT +
+                    " exclude using gist (provider_id with =, time_range with &&) where (status <> 'EXPIRED')");
+            log.info("Slot overlap constraint {} added", SLOT_OVERLAP_CONSTRAINT);
+        } catch (DataAccessException e) {
+            // missing extension privileges or already-overlapping rows; the application check still applies
+            log.error("Slot overlap constraint not installed: {}", e.getMessage());
+        }
+    }
+
+    // Specialization filters compare lower(specialization), which a plain column index cannot serve
+    private void addSpecializationIndex() {
+        jdbcTemplate.execute("drop index if exists idx_users_specialization");
+        jdbcTemplate.execute("create index if not exists idx_users_specialization_lower on users (lower(specialization))");
+    }
+
+    // Tables created while ids were identity columns already hold ids the new sequence would hand out again.
+    // A pooled block ends at the value nextval returns, so a sequence behind the highest id is moved a full
+    // block past it. A sequence already ahead is left alone, other nodes may be drawing from it.
+    private void syncIdSequence(String table, String sequence) {
+        List<Long> moved = jdbcTemplate.queryForList("select setval(?::regclass, m.max_id + p.increment_by) " +
+                "from (select coalesce(max(id), 0) as max_id from " + table + ") m, " + sequence + " s, pg_sequences p " +
+                "where p.schemaname = current_schema() and p.sequencename = ? and m.max_id + p.increment_by > s.last_value",
+                Long.class, sequence, sequence);
+        if (!moved.isEmpty()) {
+            log.info("Id sequence {} moved to {} past existing {} ids", sequence, moved.get(0), table);
+        }
+    }
+}
@@ -1,15 +1,12 @@
 package com.smartappointment.config;
 
-import com.smartappointment.entity.User;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
-import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
 @Configuration
 public class RedisConfig {
@@ -28,17 +25,11 @@ public class RedisConfig {
         return new LettuceConnectionFactory(config);
     }
 
+    // Shared container for pub/sub listeners such as cache invalidation
     @Bean
-    public RedisTemplate<String, User> redisTemplate(RedisConnectionFactory connectionFactory) {
-        RedisTemplate<String, User> template = new RedisTemplate<>();
-        template.setConnectionFactory(connectionFactory);
-
-        Jackson2JsonRedisSerializer<User> serializer = new Jackson2JsonRedisSerializer<>(User.class);
-        template.setValueSerializer(serializer);
-        template.setHashValueSerializer(serializer);
-        template.setKeySerializer(new StringRedisSerializer());
-
-        template.afterPropertiesSet();
-        return template;
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
     }
 }
@@ -2,14 +2,21 @@ package com.smartappointment.controller;
 
 import com.smartappointment.dto.AppointmentResponseDto;
 import com.smartappointment.service.AdminService;
+import com.smartappointment.service.ExportService;
+import com.smartappointment.util.enumerations.ExportFormat;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -22,6 +29,8 @@ public class AdminController {
 
     @Autowired
     private AdminService adminService;
+    @Autowired
+    private ExportService exportService;
 
     // Get total appointments for a provider
     @GetMapping("/appointments/count/{providerId}")
@@ -61,4 +70,29 @@ public class AdminController {
         return ResponseEntity.ok(rate);
     }
 
+    //Stream every slot as NDJSON or CSV
+    @GetMapping("/export/slots")
+    public ResponseEntity<StreamingResponseBody> exportSlots(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        return export("slots", exportFormat, out -> exportService.exportSlots(exportFormat, out));
+    }
+
+    //Stream appointments as NDJSON or CSV, optionally for one provider
+    @GetMapping("/export/appointments")
+    public ResponseEntity<StreamingResponseBody> exportAppointments(@RequestParam(defaultValue = "ndjson") String format,
+                                                                    @RequestParam(required = false) Long providerId) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        return export("appointments", exportFormat, out -> exportService.exportAppointments(providerId, exportFormat, out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(String dataset, ExportFormat format, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(dataset + "." + format.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
 }
@@ -2,13 +2,23 @@ package com.smartappointment.controller;
 
 
 import com.smartappointment.dto.AppointmentResponseDto;
+import com.smartappointment.dto.BatchBookingRequestDto;
+import com.smartappointment.dto.SlotHoldResponseDto;
 import com.smartappointment.service.AppointmentService;
+import com.smartappointment.service.DataVersionService;
+import com.smartappointment.service.FlashBookingService;
+import com.smartappointment.service.IdempotencyService;
+import com.smartappointment.service.SlotHoldService;
 import com.smartappointment.service.SlotService;
+import com.smartappointment.util.retry.OptimisticLockRetryExecutor;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
@@ -20,37 +30,94 @@ public class AppointmentController {
 
     @Autowired
     private AppointmentService appointmentService;
-    //get appointments by user id
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private OptimisticLockRetryExecutor retryExecutor;
+    @Autowired
+    private FlashBookingService flashBookingService;
+    @Autowired
+    private SlotHoldService slotHoldService;
+    @Autowired
+    private DataVersionService dataVersionService;
+    //get appointments by user id, 304 when the user's data version is unchanged
     @PreAuthorize("hasRole('USER')")
     @GetMapping("/getUserAppointments")
-    public ResponseEntity<List<AppointmentResponseDto>> getUserAppointments(Authentication authentication){
+    public ResponseEntity<List<AppointmentResponseDto>> getUserAppointments(Authentication authentication, WebRequest webRequest){
         String username= authentication.getName();
+        String eTag=dataVersionService.eTag(DataVersionService.userScope(username));
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
         List<AppointmentResponseDto> response=appointmentService.getUserAppointments(username);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(response);
     }
 
-    //get appointments by provider id
+    //get appointments by provider id, 304 when the provider's data version is unchanged
     @PreAuthorize("hasRole('PROVIDER')")
     @GetMapping("/getProviderAppointments")
-    public ResponseEntity<List<AppointmentResponseDto>> getProviderAppointments(Authentication authentication){
+    public ResponseEntity<List<AppointmentResponseDto>> getProviderAppointments(Authentication authentication, WebRequest webRequest){
         String username= authentication.getName();
+        String eTag=dataVersionService.eTag(DataVersionService.providerScope(username));
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
         List<AppointmentResponseDto> response=appointmentService.getProviderAppointments(username);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(response);
     }
 
     //Book a slot
     @PreAuthorize("hasRole('USER')")
     @PostMapping("/createAppointment/{slotId}")
-    public ResponseEntity<AppointmentResponseDto> createAppointment(@PathVariable Long slotId, Authentication authentication){
-        AppointmentResponseDto appointment=appointmentService.createAppointment(slotId,authentication.getName());
+    public ResponseEntity<AppointmentResponseDto> createAppointment(@PathVariable Long slotId,
+                                                                    @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                                                    Authentication authentication){
+        String username = authentication.getName();
+        AppointmentResponseDto appointment=idempotencyService.executeBooking(slotId, username, idempotencyKey,
+                () -> flashBookingService.book(slotId, username,
+                        () -> appointmentService.createAppointment(slotId, username)));
         return ResponseEntity.ok(appointment);
     }
 
+    //Hold a slot while the user confirms
+    @PreAuthorize("hasRole('USER')")
+    @PostMapping("/hold/{slotId}")
+    public ResponseEntity<SlotHoldResponseDto> holdSlot(@PathVariable Long slotId, Authentication authentication){
+        SlotHoldResponseDto hold=slotHoldService.hold(slotId,authentication.getName());
+        return ResponseEntity.ok(hold);
+    }
+
+    //Confirm a held slot into an appointment
+    @PreAuthorize("hasRole('USER')")
+    @PostMapping("/confirmHold/{slotId}")
+    public ResponseEntity<AppointmentResponseDto> confirmHold(@PathVariable Long slotId, Authentication authentication){
+        AppointmentResponseDto appointment=appointmentService.confirmHold(slotId,authentication.getName());
+        return ResponseEntity.ok(appointment);
+    }
+
+    //Release a held slot
+    @PreAuthorize("hasRole('USER')")
+    @DeleteMapping("/hold/{slotId}")
+    public ResponseEntity<String> releaseHold(@PathVariable Long slotId, Authentication authentication){
+        slotHoldService.release(slotId,authentication.getName());
+        return ResponseEntity.ok("Hold on slot "+slotId+" released.");
+    }
+
+    //Book several slots at once, all or nothing
+    @PreAuthorize("hasRole('USER')")
+    @PostMapping("/createAppointments")
+    public ResponseEntity<List<AppointmentResponseDto>> createAppointments(@Valid @RequestBody BatchBookingRequestDto request, Authentication authentication){
+        List<AppointmentResponseDto> appointments=appointmentService.createAppointments(request.getSlotIds(),authentication.getName());
+        return ResponseEntity.ok(appointments);
+    }
+
     //cancel appointment
     @DeleteMapping("/cancel/{appointmentId}")
     public ResponseEntity<String> deleteAppointment(@PathVariable Long appointmentId, Authentication authentication) {
         String username = authentication.getName();
-        appointmentService.deleteAppointment(appointmentId, username);
+        // safe to retry: a version conflict on the slot fails the attempt before any queued user is claimed,
+        // and a later rollback puts claimed users back in their place, so a retry promotes the same user
+        retryExecutor.run("deleteAppointment", () -> appointmentService.deleteAppointment(appointmentId, username));
         return ResponseEntity.ok("Appointment deleted successfully.");
     }
 
@@ -66,7 +133,7 @@ public class AppointmentController {
     @PutMapping("/completeAppointment/{appointmentId}")
     public ResponseEntity<String> completeAppointment(@PathVariable Long appointmentId, Authentication authentication){
         String username = authentication.getName();
-        appointmentService.completeAppointment(appointmentId,username);
+        retryExecutor.run("completeAppointment", () -> appointmentService.completeAppointment(appointmentId,username));
         return ResponseEntity.ok("Appointment : "+ appointmentId+" marked as completed");
 
     }
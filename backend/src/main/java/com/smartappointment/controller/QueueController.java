@@ -1,5 +1,6 @@
 package com.smartappointment.controller;
 
+import com.smartappointment.dto.QueuePositionDto;
 import com.smartappointment.entity.User;
 import com.smartappointment.repository.UserRepository;
 import com.smartappointment.service.QueueService;
@@ -32,9 +33,24 @@ public class QueueController {
     }
 
     @GetMapping("/{slotId}")
-    public ResponseEntity<Integer> viewQueue(@PathVariable Long slotId) {
+    public ResponseEntity<Long> viewQueue(@PathVariable Long slotId) {
 
-        return ResponseEntity.ok(queueService.getQueue(slotId).size());
+        return ResponseEntity.ok(queueService.getQueueSize(slotId));
+    }
+
+    @GetMapping("/{slotId}/position")
+    public ResponseEntity<QueuePositionDto> viewPosition(@PathVariable Long slotId, Authentication authentication) {
+        User user = userRepository.findByUsername(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        return ResponseEntity.ok(queueService.getPosition(slotId, user));
+    }
+
+    // positions in every queue the user has joined, in one call
+    @GetMapping("/positions")
+    public ResponseEntity<List<QueuePositionDto>> viewPositions(Authentication authentication) {
+        User user = userRepository.findByUsername(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        return ResponseEntity.ok(queueService.getPositions(user));
     }
 
     @PostMapping("/leave/{slotId}")
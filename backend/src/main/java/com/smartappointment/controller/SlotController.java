@@ -1,15 +1,25 @@
 package com.smartappointment.controller;
 
+import com.smartappointment.dto.AvailabilitySearchRequestDto;
+import com.smartappointment.dto.SlotPageResponseDto;
 import com.smartappointment.dto.SlotRequestDto;
 import com.smartappointment.dto.SlotResponseDto;
+import com.smartappointment.dto.SlotSearchRequestDto;
+import com.smartappointment.dto.SlotTemplateRequestDto;
+import com.smartappointment.dto.SlotTemplateResponseDto;
+import com.smartappointment.service.DataVersionService;
+import com.smartappointment.service.FlashBookingService;
 import com.smartappointment.service.SlotService;
+import com.smartappointment.util.retry.OptimisticLockRetryExecutor;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
@@ -23,6 +33,12 @@ public class SlotController {
 
     @Autowired
     private SlotService slotService;
+    @Autowired
+    private OptimisticLockRetryExecutor retryExecutor;
+    @Autowired
+    private FlashBookingService flashBookingService;
+    @Autowired
+    private DataVersionService dataVersionService;
 
     //add slot
     @PreAuthorize("hasRole('PROVIDER')")
@@ -34,27 +50,66 @@ public class SlotController {
         return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
     }
 
-    //get slots of a provider
+    //create slots in bulk from a recurring template
+    @PreAuthorize("hasRole('PROVIDER')")
+    @PostMapping("/template")
+    public ResponseEntity<SlotTemplateResponseDto> addSlotsFromTemplate(@Valid @RequestBody SlotTemplateRequestDto requestDto,
+                                                                        Authentication authentication) {
+        SlotTemplateResponseDto responseDto = slotService.addSlotsFromTemplate(requestDto, authentication.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
+    }
+
+    //get slots of a provider, 304 when the provider's data version is unchanged
     @PreAuthorize("hasRole('PROVIDER')")
     @GetMapping("/getMySlots")
-    public ResponseEntity<List<SlotResponseDto>> getMySlots(Authentication authentication) {
+    public ResponseEntity<List<SlotResponseDto>> getMySlots(Authentication authentication, WebRequest webRequest) {
         log.info("getting my slots");
         String username = authentication.getName();
         System.out.println("Authenticated username: " + authentication.getName());
 
+        String eTag = dataVersionService.eTag(DataVersionService.providerScope(username));
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
         List<SlotResponseDto> slots = slotService.getSlotsForProvider(username);
-        return ResponseEntity.ok(slots);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(slots);
     }
 
 
 
-    //get all slots
+    //get all slots, 304 when no slot has changed
     @GetMapping("/getAllSlots")
-    public ResponseEntity<List<SlotResponseDto>> getAllSlots(){
+    public ResponseEntity<List<SlotResponseDto>> getAllSlots(WebRequest webRequest){
+        String eTag=dataVersionService.eTag(DataVersionService.ALL_SLOTS);
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
         List<SlotResponseDto> slots=slotService.getAllSlots();
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(slots);
+    }
+
+    //search slots with filters, one keyset page at a time
+    @GetMapping("/search")
+    public ResponseEntity<SlotPageResponseDto> searchSlots(@Valid @ModelAttribute SlotSearchRequestDto request){
+        SlotPageResponseDto page=slotService.searchSlots(request);
+        return ResponseEntity.ok(page);
+    }
+
+    //available slots for a specialization in a time window, earliest first
+    @GetMapping("/available")
+    public ResponseEntity<List<SlotResponseDto>> findAvailableSlots(@Valid @ModelAttribute AvailabilitySearchRequestDto request){
+        List<SlotResponseDto> slots=slotService.findAvailableSlots(request);
         return ResponseEntity.ok(slots);
     }
 
+    //earliest available slot for a specialization in a time window
+    @GetMapping("/available/next")
+    public ResponseEntity<SlotResponseDto> findNextAvailableSlot(@Valid @ModelAttribute AvailabilitySearchRequestDto request){
+        return slotService.findNextAvailableSlot(request)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No available slot in this window"));
+    }
+
     //get slot by id
     @GetMapping("/{id}")
     public ResponseEntity<SlotResponseDto> getById(@PathVariable Long id){
@@ -68,15 +123,45 @@ public class SlotController {
     @DeleteMapping("/{id}")
     public String deleteSlot(@PathVariable Long id, Authentication authentication){
         String username=authentication.getName();
-        return slotService.deleteSlot(id,username);
+        return retryExecutor.execute("deleteSlot", () -> slotService.deleteSlot(id,username));
     }
 
     @PreAuthorize("hasRole('PROVIDER')")
     @PutMapping("/updateSlot/{slotId}")
     public ResponseEntity<SlotResponseDto> updateSlot(@PathVariable Long slotId, @Valid @RequestBody SlotRequestDto request, Authentication authentication){
-        SlotResponseDto response=slotService.updateSlot(slotId,authentication.getName(),request);
+        SlotResponseDto response=retryExecutor.execute("updateSlot", () -> slotService.updateSlot(slotId,authentication.getName(),request));
         return ResponseEntity.ok(response);
 
 
     }
+
+    //flash mode for all of the provider's upcoming slots
+    @PreAuthorize("hasRole('PROVIDER')")
+    @PostMapping("/flash")
+    public ResponseEntity<String> enableFlashMode(Authentication authentication){
+        int staged=flashBookingService.enableForProvider(authentication.getName());
+        return ResponseEntity.ok("Flash mode enabled for "+ staged +" slots");
+    }
+
+    @PreAuthorize("hasRole('PROVIDER')")
+    @DeleteMapping("/flash")
+    public ResponseEntity<String> disableFlashMode(Authentication authentication){
+        flashBookingService.disableForProvider(authentication.getName());
+        return ResponseEntity.ok("Flash mode disabled");
+    }
+
+    //flash mode for a single slot
+    @PreAuthorize("hasRole('PROVIDER')")
+    @PostMapping("/flash/{slotId}")
+    public ResponseEntity<String> enableFlashModeForSlot(@PathVariable Long slotId, Authentication authentication){
+        flashBookingService.enableForSlot(slotId, authentication.getName());
+        return ResponseEntity.ok("Flash mode enabled for slot: "+ slotId);
+    }
+
+    @PreAuthorize("hasRole('PROVIDER')")
+    @DeleteMapping("/flash/{slotId}")
+    public ResponseEntity<String> disableFlashModeForSlot(@PathVariable Long slotId, Authentication authentication){
+        flashBookingService.disableForSlot(slotId, authentication.getName());
+        return ResponseEntity.ok("Flash mode disabled for slot: "+ slotId);
+    }
 }
@@ -0,0 +1,20 @@
+package com.smartappointment.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchBookingRequestDto {
+
+    @NotEmpty(message = "At least one slot id is required")
+    @Size(max = 20, message = "Cannot book more than 20 slots at once")
+    private List<@NotNull(message = "Slot id cannot be null") Long> slotIds;
+}
@@ -0,0 +1,18 @@
+package com.smartappointment.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class QueuePositionDto {
+    private Long slotId;
+    // 1 is the head of the queue, next in line when the booking is released
+    private long position;
+    private long queueSize;
+    private LocalDateTime joinedAt;
+}
@@ -0,0 +1,17 @@
+package com.smartappointment.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SlotHoldResponseDto {
+    private Long slotId;
+    private String status;
+    private String userUsername;
+    private LocalDateTime expiresAt;
+}
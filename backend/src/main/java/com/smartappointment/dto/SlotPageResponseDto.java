@@ -0,0 +1,17 @@
+package com.smartappointment.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SlotPageResponseDto {
+    private List<SlotResponseDto> slots;
+    // pass back as cursor to fetch the next page, null on the last page
+    private String nextCursor;
+    private boolean hasMore;
+}
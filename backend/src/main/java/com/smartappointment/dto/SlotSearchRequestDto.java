@@ -0,0 +1,36 @@
+package com.smartappointment.dto;
+
+import com.smartappointment.util.enumerations.SlotStatus;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SlotSearchRequestDto {
+
+    private List<SlotStatus> status;
+    private Long providerId;
+    private String specialization;
+
+    // slots starting at or after from and before to
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+
+    // opaque nextCursor from the previous page
+    private String cursor;
+
+    @Builder.Default
+    @Min(value = 1, message = "Page size must be at least 1")
+    @Max(value = 100, message = "Page size cannot be more than 100")
+    private int size = 20;
+}
@@ -0,0 +1,48 @@
+package com.smartappointment.dto;
+
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+
+// A recurring availability pattern, e.g. MONDAY-FRIDAY 09:00-17:00 in 30 minute slots for 12 weeks
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotTemplateRequestDto {
+    @NotBlank(message = "Description is required")
+    @Size(max = 255, message = "Description cannot be more than 255 characters")
+    private String description;
+
+    @NotEmpty(message = "At least one day of the week is required")
+    private Set<DayOfWeek> daysOfWeek;
+
+    // each day is cut into back-to-back slots from dayStart, a trailing remainder shorter than a slot is left free
+    @NotNull(message = "Day start is required")
+    private LocalTime dayStart;
+
+    @NotNull(message = "Day end is required")
+    private LocalTime dayEnd;
+
+    @NotNull(message = "Slot length is required")
+    private Integer slotMinutes;
+
+    @NotNull(message = "Start date is required")
+    @FutureOrPresent(message = "Start date cannot be in the past")
+    private LocalDate startDate;
+
+    @Min(value = 1, message = "Weeks must be at least 1")
+    @Max(value = 52, message = "Weeks cannot be more than 52")
+    private int weeks;
+}
@@ -0,0 +1,16 @@
+package com.smartappointment.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SlotTemplateResponseDto {
+    private int created;
+    private LocalDateTime firstStartTime;
+    private LocalDateTime lastEndTime;
+}
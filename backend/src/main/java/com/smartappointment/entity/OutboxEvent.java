@@ -0,0 +1,34 @@
+package com.smartappointment.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// A side effect recorded in the same transaction as the change that caused it, published later by the OutboxRelay
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "idx_outbox_event_created_id", columnList = "created_at, id"))
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = SequenceIds.ALLOCATION_SIZE)
+    private Long id;
+
+    private String aggregateType;
+    private Long aggregateId;
+    private String eventType;
+
+    @Column(columnDefinition = "text", nullable = false)
+    private String payload;
+
+    private LocalDateTime createdAt;
+
+    // set while a relay is publishing the row; a claim that outlives its relay lapses and the row is sent again
+    private LocalDateTime claimedUntil;
+}
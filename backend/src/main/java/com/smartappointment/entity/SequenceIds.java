@@ -0,0 +1,12 @@
+package com.smartappointment.entity;
+
+// Ids come from pooled sequences, so Hibernate can batch inserts instead of reading back an identity per row.
+// Each sequence increments by the allocation size and a node hands out the ids of a block from memory.
+// With hibernate.id.sequence.increment_size_mismatch_strategy=FIX an altered INCREMENT BY wins on restart.
+final class SequenceIds {
+
+    static final int ALLOCATION_SIZE = 50;
+
+    private SequenceIds() {
+    }
+}
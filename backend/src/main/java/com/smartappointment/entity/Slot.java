@@ -3,6 +3,7 @@ package com.smartappointment.entity;
 import com.smartappointment.util.enumerations.AppointmentStatus;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import com.smartappointment.util.enumerations.SlotStatus;
@@ -13,9 +14,17 @@ import com.smartappointment.util.enumerations.SlotStatus;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Table(indexes = {
+        @Index(name = "idx_slot_start_end", columnList = "start_time, end_time"),
+        // keyset pagination indexes for the slot search, unfiltered or filtered by status or provider
+        @Index(name = "idx_slot_start_id", columnList = "start_time, id"),
+        @Index(name = "idx_slot_status_start_id", columnList = "status, start_time, id"),
+        @Index(name = "idx_slot_provider_start_id", columnList = "provider_id, start_time, id")
+})
 public class Slot {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "slot_seq")
+    @SequenceGenerator(name = "slot_seq", sequenceName = "slot_seq", allocationSize = SequenceIds.ALLOCATION_SIZE)
     private Long id;
     private String description;
     private LocalDateTime startTime;
@@ -26,4 +35,13 @@ public class Slot {
     @JoinColumn(name="provider_id")
     private User provider;
 
+    // set while a user holds the slot pending confirmation
+    private Long heldByUserId;
+    private LocalDateTime holdExpiresAt;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
 }
@@ -0,0 +1,12 @@
+package com.smartappointment.event;
+
+import com.smartappointment.entity.Appointment;
+
+// Published whenever an appointment is booked, cancelled, completed or expired; listeners act after commit
+public record AppointmentChangedEvent(Long appointmentId, String userUsername, String providerUsername) {
+
+    public static AppointmentChangedEvent of(Appointment appointment) {
+        return new AppointmentChangedEvent(appointment.getId(), appointment.getUser().getUsername(),
+                appointment.getSlot().getProvider().getUsername());
+    }
+}
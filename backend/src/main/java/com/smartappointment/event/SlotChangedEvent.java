@@ -0,0 +1,11 @@
+package com.smartappointment.event;
+
+import com.smartappointment.entity.Slot;
+
+// Published whenever a slot is created, edited, deleted or changes status; listeners act after commit
+public record SlotChangedEvent(Long slotId, Long providerId, String providerUsername) {
+
+    public static SlotChangedEvent of(Slot slot) {
+        return new SlotChangedEvent(slot.getId(), slot.getProvider().getId(), slot.getProvider().getUsername());
+    }
+}
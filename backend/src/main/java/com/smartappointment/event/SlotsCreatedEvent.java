@@ -0,0 +1,7 @@
+package com.smartappointment.event;
+
+import java.util.List;
+
+// Published once for slots created together from a template, in place of one SlotChangedEvent per slot
+public record SlotsCreatedEvent(List<Long> slotIds, Long providerId, String providerUsername) {
+}
@@ -0,0 +1,19 @@
+package com.smartappointment.exception;
+
+import lombok.Getter;
+
+// A booking turned away by a business rule; the outcome tags the booking latency metrics
+@Getter
+public class BookingRejectedException extends IllegalStateException {
+
+    public static final String CAP_EXCEEDED = "cap-exceeded";
+    public static final String CLASH = "clash";
+    public static final String UNAVAILABLE = "unavailable";
+
+    private final String outcome;
+
+    public BookingRejectedException(String outcome, String message) {
+        super(message);
+        this.outcome = outcome;
+    }
+}
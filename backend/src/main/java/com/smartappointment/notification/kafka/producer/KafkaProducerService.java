@@ -8,6 +8,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class KafkaProducerService {
     private static final Logger logger = LoggerFactory.getLogger(KafkaProducerService.class);
@@ -28,4 +30,13 @@ public class KafkaProducerService {
         logger.info("Sending notification: {}", message);
         kafkaTemplate.send(topic, message);
     }
+
+    // Used by the outbox relay, which waits for the broker ack before deleting the event
+    public CompletableFuture<?> publish(String key, String message) {
+        if (!kafkaEnabled) {
+            logger.info("Kafka notification skipped: {}", message);
+            return CompletableFuture.completedFuture(null);
+        }
+        return kafkaTemplate.send(topic, key, message);
+    }
 }
@@ -2,11 +2,17 @@ package com.smartappointment.repository;
 
 import com.smartappointment.entity.Appointment;
 import com.smartappointment.entity.User;
+import com.smartappointment.repository.projection.AppointmentRow;
 import com.smartappointment.util.enumerations.AppointmentStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface AppointmentRepository extends JpaRepository<Appointment,Long> {
     // Get all appointments for a given user by User object
@@ -14,6 +20,30 @@ public interface AppointmentRepository extends JpaRepository<Appointment,Long> {
 
     List<Appointment> findByUserUsername(String username);
     List<Appointment> findBySlotProviderUsername(String username);
+
+    // Listing projections, one joined select regardless of row count
+    @Query("select new com.smartappointment.repository.projection.AppointmentRow(a.id, a.status, s.id, s.description, " +
+            "s.startTime, s.endTime, p.id, p.username, p.email, u.username, u.email) " +
+            "from Appointment a join a.slot s join s.provider p join a.user u where u.username = :username")
+    List<AppointmentRow> findRowsByUserUsername(String username);
+
+    @Query("select new com.smartappointment.repository.projection.AppointmentRow(a.id, a.status, s.id, s.description, " +
+            "s.startTime, s.endTime, p.id, p.username, p.email, u.username, u.email) " +
+            "from Appointment a join a.slot s join s.provider p join a.user u where p.username = :username")
+    List<AppointmentRow> findRowsByProviderUsername(String username);
+
+    // Forward-only cursors for exports; rows are DTOs, so nothing accumulates in the persistence context
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.smartappointment.repository.projection.AppointmentRow(a.id, a.status, s.id, s.description, " +
+            "s.startTime, s.endTime, p.id, p.username, p.email, u.username, u.email) " +
+            "from Appointment a join a.slot s join s.provider p join a.user u order by a.id")
+    Stream<AppointmentRow> streamAllRows();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.smartappointment.repository.projection.AppointmentRow(a.id, a.status, s.id, s.description, " +
+            "s.startTime, s.endTime, p.id, p.username, p.email, u.username, u.email) " +
+            "from Appointment a join a.slot s join s.provider p join a.user u where p.id = :providerId order by a.id")
+    Stream<AppointmentRow> streamRowsByProviderId(Long providerId);
     List<Appointment> findBySlotEndTimeBeforeAndStatus(LocalDateTime now, AppointmentStatus status);
     
     // Get all appointments for a specific provider by providerId
@@ -21,4 +51,14 @@ public interface AppointmentRepository extends JpaRepository<Appointment,Long> {
 
     // Get appointments for a specific slot
     Appointment findBySlotId(Long slotId);
+
+    // Count a user's appointments whose slot starts inside the given window
+    long countByUserIdAndSlotStartTimeAfterAndSlotStartTimeBefore(Long userId, LocalDateTime from, LocalDateTime to);
+
+    // Check whether a user has an appointment in the given status overlapping the given time range
+    boolean existsByUserIdAndStatusAndSlotStartTimeBeforeAndSlotEndTimeAfter(Long userId, AppointmentStatus status,
+                                                                             LocalDateTime end, LocalDateTime start);
+
+    // Get a user's appointments overlapping the given time range
+    List<Appointment> findByUserIdAndSlotStartTimeBeforeAndSlotEndTimeAfter(Long userId, LocalDateTime end, LocalDateTime start);
 }
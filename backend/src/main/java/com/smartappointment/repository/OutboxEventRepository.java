@@ -0,0 +1,31 @@
+package com.smartappointment.repository;
+
+import com.smartappointment.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Claim the oldest unclaimed events until claimedUntil, in one statement that commits on its own, so no
+    // connection or row lock is held while they are published. Rows another relay is claiming right now are skipped.
+    // Pooled ids are handed out in per-node blocks, so age comes from created_at and id only breaks ties.
+    @Transactional
+    @Query(value = """
+            update outbox_event set claimed_until = :claimedUntil
+            where id in (select id from outbox_event
+                         where claimed_until is null or claimed_until < :now
+                         order by created_at, id limit :batchSize for update skip locked)
+            returning *""", nativeQuery = true)
+    List<OutboxEvent> claimNextBatch(int batchSize, LocalDateTime now, LocalDateTime claimedUntil);
+
+    // Hand back events that failed to publish, so the next run retries them without waiting for the claim to lapse
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.claimedUntil = null where e.id in :ids")
+    int releaseClaims(List<Long> ids);
+}
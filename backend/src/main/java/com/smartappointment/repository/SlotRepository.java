@@ -2,13 +2,24 @@ package com.smartappointment.repository;
 
 import com.smartappointment.entity.Slot;
 import com.smartappointment.entity.User;
+import com.smartappointment.repository.projection.SlotInterval;
+import com.smartappointment.repository.projection.SlotRow;
 import com.smartappointment.util.enumerations.SlotStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface SlotRepository extends JpaRepository<Slot, Long> {
+public interface SlotRepository extends JpaRepository<Slot, Long>, JpaSpecificationExecutor<Slot> {
 
     List<Slot> findByProviderAndStatus(User provider,SlotStatus status);
     List<Slot> findByProvider(User provider);
@@ -16,4 +27,72 @@ public interface SlotRepository extends JpaRepository<Slot, Long> {
     List<Slot> findByProviderId(Long providerId);
     List<Slot> findByEndTimeBeforeAndStatus(LocalDateTime now, SlotStatus status);
 
+    // Listing projections, one joined select regardless of row count
+    @Query("select new com.smartappointment.repository.projection.SlotRow(s.id, s.description, s.startTime, s.endTime, " +
+            "s.status, p.id, p.username, p.email, p.specialization) from Slot s join s.provider p order by s.startTime, s.id")
+    List<SlotRow> findAllRows();
+
+    @Query("select new com.smartappointment.repository.projection.SlotRow(s.id, s.description, s.startTime, s.endTime, " +
+            "s.status, p.id, p.username, p.email, p.specialization) from Slot s join s.provider p " +
+            "where p.id = :providerId order by s.startTime, s.id")
+    List<SlotRow> findRowsByProviderId(Long providerId);
+
+    @Query("select new com.smartappointment.repository.projection.SlotRow(s.id, s.description, s.startTime, s.endTime, " +
+            "s.status, p.id, p.username, p.email, p.specialization) from Slot s join s.provider p where s.id = :id")
+    Optional<SlotRow> findRowById(Long id);
+
+    @Query("select new com.smartappointment.repository.projection.SlotRow(s.id, s.description, s.startTime, s.endTime, " +
+            "s.status, p.id, p.username, p.email, p.specialization) from Slot s join s.provider p where s.id in :ids")
+    List<SlotRow> findRowsByIdIn(Collection<Long> ids);
+
+    // Time ranges of a provider's slots that still count for overlap checks
+    @Query("select new com.smartappointment.repository.projection.SlotInterval(s.id, s.startTime, s.endTime) from Slot s " +
+            "where s.provider.id = :providerId and s.status <> com.smartappointment.util.enumerations.SlotStatus.EXPIRED")
+    List<SlotInterval> findOpenIntervalsByProviderId(Long providerId);
+
+    // Forward-only cursor for exports; rows are DTOs, so nothing accumulates in the persistence context
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.smartappointment.repository.projection.SlotRow(s.id, s.description, s.startTime, s.endTime, " +
+            "s.status, p.id, p.username, p.email, p.specialization) from Slot s join s.provider p order by s.id")
+    Stream<SlotRow> streamAllRows();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.smartappointment.repository.projection.SlotRow(s.id, s.description, s.startTime, s.endTime, " +
+            "s.status, p.id, p.username, p.email, p.specialization) from Slot s join s.provider p " +
+            "where s.status = com.smartappointment.util.enumerations.SlotStatus.AVAILABLE and s.endTime > :now")
+    Stream<SlotRow> streamAvailableRows(LocalDateTime now);
+
+    // Conditional status transition that bumps the version, returns 0 when the slot is no longer in the expected state
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Slot s set s.status = :to where s.id = :id and s.status = :from")
+    int transitionStatus(Long id, SlotStatus from, SlotStatus to);
+
+    // Hold transitions, each conditional on the current hold so a late request cannot undo a newer one
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Slot s set s.status = com.smartappointment.util.enumerations.SlotStatus.HELD, " +
+            "s.heldByUserId = :userId, s.holdExpiresAt = :expiresAt " +
+            "where s.id = :id and s.status = com.smartappointment.util.enumerations.SlotStatus.AVAILABLE")
+    int placeHold(Long id, Long userId, LocalDateTime expiresAt);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Slot s set s.status = com.smartappointment.util.enumerations.SlotStatus.BOOKED, " +
+            "s.heldByUserId = null, s.holdExpiresAt = null " +
+            "where s.id = :id and s.status = com.smartappointment.util.enumerations.SlotStatus.HELD " +
+            "and s.heldByUserId = :userId and s.holdExpiresAt > :now")
+    int confirmHold(Long id, Long userId, LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Slot s set s.status = com.smartappointment.util.enumerations.SlotStatus.AVAILABLE, " +
+            "s.heldByUserId = null, s.holdExpiresAt = null " +
+            "where s.id = :id and s.status = com.smartappointment.util.enumerations.SlotStatus.HELD " +
+            "and s.heldByUserId = :userId")
+    int releaseHold(Long id, Long userId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Slot s set s.status = com.smartappointment.util.enumerations.SlotStatus.AVAILABLE, " +
+            "s.heldByUserId = null, s.holdExpiresAt = null " +
+            "where s.id in :ids and s.status = com.smartappointment.util.enumerations.SlotStatus.HELD " +
+            "and s.holdExpiresAt <= :now")
+    int expireHolds(List<Long> ids, LocalDateTime now);
+
 }
@@ -0,0 +1,65 @@
+package com.smartappointment.repository;
+
+import com.smartappointment.entity.Slot;
+import com.smartappointment.entity.User;
+import com.smartappointment.util.enumerations.SlotStatus;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Criteria for the paginated slot search, every filter is optional
+public final class SlotSpecifications {
+
+    private SlotSpecifications() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Specification<Slot> search(List<SlotStatus> statuses, Long providerId, String specialization,
+                                             LocalDateTime from, LocalDateTime to) {
+        return (root, query, cb) -> {
+            // fetch the provider in the same query, the listing reads it for every row
+            Join<Slot, User> provider;
+            if (Long.class != query.getResultType()) {
+                Fetch<Slot, User> fetch = root.fetch("provider", JoinType.INNER);
+                provider = (Join<Slot, User>) fetch;
+            } else {
+                provider = root.join("provider", JoinType.INNER);
+            }
+
+            List<Predicate> predicates = new ArrayList<>();
+            if (statuses != null && !statuses.isEmpty()) {
+                predicates.add(root.get("status").in(statuses));
+            }
+            if (providerId != null) {
+                predicates.add(cb.equal(provider.get("id"), providerId));
+            }
+            if (specialization != null && !specialization.isBlank()) {
+                predicates.add(cb.equal(cb.lower(provider.get("specialization")), specialization.toLowerCase()));
+            }
+            if (from != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("startTime"), from));
+            }
+            if (to != null) {
+                predicates.add(cb.lessThan(root.get("startTime"), to));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    // Keyset condition for rows after (startTime, id) in ascending order. JPA criteria have no row-value
+    // comparison, so the leading startTime >= bound is spelled out: it gives the planner a range seek on the
+    // (..., start_time, id) indexes, and the OR only settles ties on that first start time.
+    public static Specification<Slot> after(LocalDateTime startTime, Long id) {
+        return (root, query, cb) -> cb.and(
+                cb.greaterThanOrEqualTo(root.get("startTime"), startTime),
+                cb.or(
+                        cb.greaterThan(root.get("startTime"), startTime),
+                        cb.and(cb.equal(root.get("startTime"), startTime), cb.greaterThan(root.get("id"), id))));
+    }
+}
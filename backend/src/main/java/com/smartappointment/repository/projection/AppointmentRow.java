@@ -0,0 +1,36 @@
+package com.smartappointment.repository.projection;
+
+import com.smartappointment.dto.AppointmentResponseDto;
+import com.smartappointment.util.enumerations.AppointmentStatus;
+
+import java.time.LocalDateTime;
+
+// Flat row for appointment listings, filled by a single joined select across appointment, slot and both users
+public record AppointmentRow(Long appointmentId,
+                             AppointmentStatus status,
+                             Long slotId,
+                             String description,
+                             LocalDateTime startTime,
+                             LocalDateTime endTime,
+                             Long providerId,
+                             String providerUsername,
+                             String providerEmail,
+                             String userUsername,
+                             String userEmail) {
+
+    public AppointmentResponseDto toResponseDto() {
+        return AppointmentResponseDto.builder()
+                .appointmentId(appointmentId)
+                .slotId(slotId)
+                .description(description)
+                .startTime(startTime)
+                .endTime(endTime)
+                .providerId(providerId)
+                .providerUsername(providerUsername)
+                .providerEmail(providerEmail)
+                .status(String.valueOf(status))
+                .userUsername(userUsername)
+                .userEmail(userEmail)
+                .build();
+    }
+}
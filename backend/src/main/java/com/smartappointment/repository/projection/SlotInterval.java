@@ -0,0 +1,7 @@
+package com.smartappointment.repository.projection;
+
+import java.time.LocalDateTime;
+
+// Just the time range of a slot, for overlap checks
+public record SlotInterval(Long id, LocalDateTime startTime, LocalDateTime endTime) {
+}
@@ -0,0 +1,39 @@
+package com.smartappointment.repository.projection;
+
+import com.smartappointment.dto.SlotResponseDto;
+import com.smartappointment.entity.Slot;
+import com.smartappointment.util.enumerations.SlotStatus;
+
+import java.time.LocalDateTime;
+
+// Flat row for slot listings, filled by a single joined select
+public record SlotRow(Long id,
+                      String description,
+                      LocalDateTime startTime,
+                      LocalDateTime endTime,
+                      SlotStatus status,
+                      Long providerId,
+                      String providerUsername,
+                      String providerEmail,
+                      String providerSpecialization) {
+
+    public static SlotRow of(Slot slot) {
+        return new SlotRow(slot.getId(), slot.getDescription(), slot.getStartTime(), slot.getEndTime(), slot.getStatus(),
+                slot.getProvider().getId(), slot.getProvider().getUsername(), slot.getProvider().getEmail(),
+                slot.getProvider().getSpecialization());
+    }
+
+    public SlotResponseDto toResponseDto() {
+        return SlotResponseDto.builder()
+                .id(id)
+                .description(description)
+                .startTime(startTime)
+                .endTime(endTime)
+                .status(status.name())
+                .providerId(providerId)
+                .providerUsername(providerUsername)
+                .providerEmail(providerEmail)
+                .providerSpecialization(providerSpecialization)
+                .build();
+    }
+}
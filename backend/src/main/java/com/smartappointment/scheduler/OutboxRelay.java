@@ -0,0 +1,62 @@
+package com.smartappointment.scheduler;
+
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.entity.OutboxEvent;
+import com.smartappointment.notification.kafka.producer.KafkaProducerService;
+import com.smartappointment.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Publishes committed outbox rows to Kafka in batches and deletes them once the broker has acked.
+// Each step is its own short transaction: claim, then publish with no connection held, then delete.
+// Delivery is at-least-once: a batch that fails part way, or whose relay dies, is re-sent in full.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final AppConfigProperties config;
+    private final MeterRegistry meterRegistry;
+
+    @Scheduled(fixedDelayString = "${app.outboxRelayIntervalMillis}")
+    public void relay() {
+        // the claim outlasts the publish timeout, so a live relay never has its batch taken over
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> batch = outboxEventRepository.claimNextBatch(config.getOutboxBatchSize(), now,
+                now.plusNanos(2_000_000L * config.getOutboxPublishTimeoutMillis()));
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        CompletableFuture<?>[] acks = batch.stream()
+                .map(event -> kafkaProducerService.publish(event.getAggregateType() + ":" + event.getAggregateId(), event.getPayload()))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(acks).get(config.getOutboxPublishTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // the rows stay in the outbox and are picked up again on the next run
+            outboxEventRepository.releaseClaims(batch.stream().map(OutboxEvent::getId).toList());
+            meterRegistry.counter("outbox.events", "result", "failed").increment(batch.size());
+            throw new IllegalStateException("Failed to publish " + batch.size() + " outbox events", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing outbox events", e);
+        }
+
+        outboxEventRepository.deleteAllInBatch(batch);
+        meterRegistry.counter("outbox.events", "result", "published").increment(batch.size());
+        log.info("Relayed {} outbox events to Kafka", batch.size());
+    }
+}
@@ -3,16 +3,21 @@ package com.smartappointment.scheduler;
 import ch.qos.logback.core.net.SyslogOutputStream;
 import com.smartappointment.entity.Appointment;
 import com.smartappointment.entity.Slot;
+import com.smartappointment.event.AppointmentChangedEvent;
+import com.smartappointment.event.SlotChangedEvent;
 import com.smartappointment.notification.NotificationService;
 import com.smartappointment.notification.kafka.producer.KafkaProducerService;
 import com.smartappointment.repository.AppointmentRepository;
 import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.service.OutboxService;
 import com.smartappointment.service.QueueService;
+import com.smartappointment.service.SlotHoldService;
 import com.smartappointment.util.enumerations.AppointmentStatus;
 import com.smartappointment.util.enumerations.SlotStatus;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -38,6 +43,15 @@ public class Scheduler {
     @Autowired
     private QueueService queueService;
 
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SlotHoldService slotHoldService;
+
 
     @Scheduled(fixedRate = 60000)
     @Transactional
@@ -48,7 +62,8 @@ public class Scheduler {
         for (Appointment appointment : pastAppointments) {
             appointment.setStatus(AppointmentStatus.EXPIRED); // or MISSED if no-show logic
             appointmentRepository.save(appointment);
-            kafkaProducerService.sendNotification("Appointment: "+appointment.getId()+" expired!!");
+            eventPublisher.publishEvent(AppointmentChangedEvent.of(appointment));
+            outboxService.record("Appointment", appointment.getId(), "APPOINTMENT_EXPIRED", "Appointment: "+appointment.getId()+" expired!!");
             notificationService.sendNotification(appointment.getUser().getUsername(),"Appointment: "+ appointment.getId()+" expired");
             // expire the booked slot
             Slot slot = appointment.getSlot();
@@ -57,8 +72,9 @@ public class Scheduler {
 
             queueService.clearQueueForSlot(slot.getId());
             slotRepository.save(slot);
+            eventPublisher.publishEvent(SlotChangedEvent.of(slot));
             notificationService.sendNotification(slot.getProvider().getUsername(),"Slot: "+ slot.getId()+" expired");
-            kafkaProducerService.sendNotification("Slot: "+slot.getId()+" expired!!");
+            outboxService.record("Slot", slot.getId(), "SLOT_EXPIRED", "Slot: "+slot.getId()+" expired!!");
         }
     }
 
@@ -73,10 +89,22 @@ public class Scheduler {
             s.setStatus(SlotStatus.EXPIRED);
             queueService.clearQueueForSlot(s.getId());
             slotRepository.save(s);
+            eventPublisher.publishEvent(SlotChangedEvent.of(s));
             notificationService.sendNotification(s.getProvider().getUsername(),"Slot: "+ s.getId()+" expired");
-            kafkaProducerService.sendNotification("Slot: "+s.getId()+" expired!!");
+            outboxService.record("Slot", s.getId(), "SLOT_EXPIRED", "Slot: "+s.getId()+" expired!!");
+
+        }
+    }
 
+    // driven by the hold timer set, so idle runs cost one Redis read and never touch the slot table
+    @Scheduled(fixedRate = 5000)
+    public void expireStaleHolds() {
+        List<String> dueHolds = slotHoldService.findDueHolds();
+        if (dueHolds.isEmpty()) {
+            return;
         }
+        slotHoldService.expireHolds(dueHolds);
+        slotHoldService.clearTimers(dueHolds);
     }
 
     @Scheduled(fixedRate = 60000)
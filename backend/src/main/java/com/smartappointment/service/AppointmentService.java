@@ -7,19 +7,26 @@ import com.smartappointment.entity.Appointment;
 import com.smartappointment.entity.CancellationLog;
 import com.smartappointment.entity.Slot;
 import com.smartappointment.entity.User;
+import com.smartappointment.event.AppointmentChangedEvent;
+import com.smartappointment.event.SlotChangedEvent;
+import com.smartappointment.exception.BookingRejectedException;
 import com.smartappointment.notification.NotificationService;
-import com.smartappointment.notification.kafka.producer.KafkaProducerService;
 import com.smartappointment.repository.AppointmentRepository;
 import com.smartappointment.repository.CancellationLogRepository;
 import com.smartappointment.repository.SlotRepository;
 import com.smartappointment.repository.UserRepository;
+import com.smartappointment.repository.projection.AppointmentRow;
 import com.smartappointment.util.enumerations.AppointmentStatus;
 import com.smartappointment.util.enumerations.SlotStatus;
+import com.smartappointment.util.metrics.BookingMetrics;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.LockModeType;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.common.errors.ResourceNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -27,8 +34,13 @@ import org.springframework.web.server.ResponseStatusException;
 import io.micrometer.core.instrument.MeterRegistry;
 
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -49,49 +61,31 @@ public class AppointmentService {
     @Autowired
     private AppConfigProperties config;
     @Autowired
-    private KafkaProducerService kafkaProducerService;
+    private OutboxService outboxService;
     @Autowired
     private QueueService queueService;
+    @Autowired
+    private FlashBookingService flashBookingService;
+    @Autowired
+    private BookingMetrics bookingMetrics;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private EntityManager entityManager;
 
     //get user appointments
     public List<AppointmentResponseDto> getUserAppointments(String username){
-        List<Appointment> appointments=appointmentRepository.findByUserUsername(username);
-
-        return   appointments
+        return appointmentRepository.findRowsByUserUsername(username)
                 .stream()
-                .map(appointment -> AppointmentResponseDto.builder()
-                        .appointmentId(appointment.getId())
-                        .slotId(appointment.getSlot().getId())
-                        .description(appointment.getSlot().getDescription())
-                        .startTime(appointment.getSlot().getStartTime())
-                        .endTime(appointment.getSlot().getEndTime())
-                        .providerId(appointment.getSlot().getProvider().getId())
-                        .providerUsername(appointment.getSlot().getProvider().getUsername())
-                        .providerEmail(appointment.getSlot().getProvider().getEmail())
-                        .status(String.valueOf(appointment.getStatus()))
-                        .build())
+                .map(AppointmentRow::toResponseDto)
                 .toList();
     }
 
     //get provider appointments
     public List<AppointmentResponseDto> getProviderAppointments(String username){
-        List<Appointment> appointments=appointmentRepository.findBySlotProviderUsername(username);
-
-        return   appointments
+        return appointmentRepository.findRowsByProviderUsername(username)
                 .stream()
-                .map(appointment -> AppointmentResponseDto.builder()
-                        .appointmentId(appointment.getId())
-                        .slotId(appointment.getSlot().getId())
-                        .description(appointment.getSlot().getDescription())
-                        .startTime(appointment.getSlot().getStartTime())
-                        .endTime(appointment.getSlot().getEndTime())
-                        .providerId(appointment.getSlot().getProvider().getId())
-                        .providerUsername(appointment.getSlot().getProvider().getUsername())
-                        .providerEmail(appointment.getSlot().getProvider().getEmail())
-                        .status(String.valueOf(appointment.getStatus()))
-                        .userUsername(appointment.getUser().getUsername())
-                        .userEmail(appointment.getUser().getEmail())
-                        .build())
+                .map(AppointmentRow::toResponseDto)
                 .toList();
     }
 
@@ -119,46 +113,73 @@ public class AppointmentService {
     //book appointment
     @Transactional
     public AppointmentResponseDto createAppointment(Long slotId, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        return bookingMetrics.operation("create", () -> {
+            // claim the slot in a single conditional update, so concurrent losers are rejected
+            // here without loading anything; any failure below rolls the claim back
+            int claimed = bookingMetrics.phase("create", "claim",
+                    () -> slotRepository.transitionStatus(slotId, SlotStatus.AVAILABLE, SlotStatus.BOOKED));
+            if (claimed == 0) {
+                if (!slotRepository.existsById(slotId)) {
+                    throw new EntityNotFoundException("Slot not found");
+                }
+                throw new BookingRejectedException(BookingRejectedException.UNAVAILABLE, "Slot is either booked or expired");
+            }
+
+            User user = bookingMetrics.phase("create", "user-lookup", () -> userRepository.findByUsername(username))
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+            return bookClaimedSlot("create", slotId, user);
+        });
+    }
 
-        Slot slot = slotRepository.findById(slotId)
-                .orElseThrow(() -> new EntityNotFoundException("Slot not found"));
+    //confirm a slot the user is holding
+    @Transactional
+    public AppointmentResponseDto confirmHold(Long slotId, String username) {
+        return bookingMetrics.operation("confirm-hold", () -> {
+            User user = bookingMetrics.phase("confirm-hold", "user-lookup", () -> userRepository.findByUsername(username))
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+            int claimed = bookingMetrics.phase("confirm-hold", "claim",
+                    () -> slotRepository.confirmHold(slotId, user.getId(), LocalDateTime.now()));
+            if (claimed == 0) {
+                if (!slotRepository.existsById(slotId)) {
+                    throw new EntityNotFoundException("Slot not found");
+                }
+                throw new BookingRejectedException(BookingRejectedException.UNAVAILABLE,
+                        "You do not hold slot " + slotId + " or your hold has expired");
+            }
+
+            return bookClaimedSlot("confirm-hold", slotId, user);
+        });
+    }
 
-        if (!slot.getStatus().equals(SlotStatus.AVAILABLE)) {
-            throw new IllegalStateException("Slot is either booked or expired");
-        }
+    // runs after the slot has been moved to BOOKED by the caller's conditional update
+    private AppointmentResponseDto bookClaimedSlot(String operation, Long slotId, User user) {
+        Slot slot = bookingMetrics.phase(operation, "slot-load", () -> slotRepository.findById(slotId))
+                .orElseThrow(() -> new EntityNotFoundException("Slot not found"));
 
         //check for max bookings per day
         LocalDateTime startOfDay = slot.getStartTime().toLocalDate().atStartOfDay();
         LocalDateTime endOfDay = startOfDay.plusDays(1);
 
-        long dailyBookingCount = appointmentRepository.findByUser(user).stream()
-                .filter(appointment -> {
-                    LocalDateTime appointmentTime = appointment.getSlot().getStartTime();
-                    return appointmentTime.isAfter(startOfDay) && appointmentTime.isBefore(endOfDay);
-                })
-                .count();
+        long dailyBookingCount = bookingMetrics.phase(operation, "cap-check", () -> appointmentRepository
+                .countByUserIdAndSlotStartTimeAfterAndSlotStartTimeBefore(user.getId(), startOfDay, endOfDay));
 
         if (dailyBookingCount >= config.getMaxBookingsPerDay()) {
-            throw new IllegalStateException("You have reached the maximum number of bookings for today");
+            throw new BookingRejectedException(BookingRejectedException.CAP_EXCEEDED,
+                    "You have reached the maximum number of bookings for today");
         }
 
-        // check for clashing appointments
-        List<Appointment> existingAppointments = appointmentRepository.findByUser(user);
-
-        boolean hasClash = existingAppointments.stream().anyMatch(appointment ->
-                appointment.getSlot().getStartTime().isBefore(slot.getEndTime())
-                        && slot.getStartTime().isBefore(appointment.getSlot().getEndTime())
-        );
+        // check for clashing appointments; only a live booking blocks the window, as when joining a queue
+        boolean hasClash = bookingMetrics.phase(operation, "clash-check", () -> appointmentRepository
+                .existsByUserIdAndStatusAndSlotStartTimeBeforeAndSlotEndTimeAfter(
+                        user.getId(), AppointmentStatus.BOOKED, slot.getEndTime(), slot.getStartTime()));
 
         if (hasClash) {
-            throw new IllegalStateException("You already have an appointment that overlaps with this slot");
+            throw new BookingRejectedException(BookingRejectedException.CLASH,
+                    "You already have an appointment that overlaps with this slot");
         }
 
-        // mark slot as unavailable
-        slot.setStatus(SlotStatus.BOOKED);
-
         // create new appointment
         Appointment appointment = Appointment.builder()
                 .slot(slot)
@@ -166,11 +187,15 @@ public class AppointmentService {
                 .status(AppointmentStatus.BOOKED)
                 .build();
 
-        Appointment savedAppointment = appointmentRepository.save(appointment);
+        Appointment savedAppointment = bookingMetrics.phase(operation, "save", () -> appointmentRepository.save(appointment));
+        eventPublisher.publishEvent(SlotChangedEvent.of(slot));
+        eventPublisher.publishEvent(AppointmentChangedEvent.of(savedAppointment));
 
         meterRegistry.counter("appointments.booked.count").increment();
-        notificationService.sendNotification(appointment.getUser().getEmail(), "Your appointment is booked successfully!");
-        kafkaProducerService.sendNotification("Your appointment is booked successfully!");
+        bookingMetrics.phase(operation, "notify", () -> {
+            notificationService.sendNotification(appointment.getUser().getEmail(), "Your appointment is booked successfully!");
+            outboxService.record("Appointment", savedAppointment.getId(), "APPOINTMENT_BOOKED", "Your appointment is booked successfully!");
+        });
 
         return AppointmentResponseDto.builder()
                 .appointmentId(savedAppointment.getId())
@@ -186,44 +211,177 @@ public class AppointmentService {
                 .build();
     }
 
+    //book several slots at once, all or nothing
+    @Transactional
+    public List<AppointmentResponseDto> createAppointments(List<Long> slotIds, String username) {
+        // claim in id order so concurrent batches lock rows in the same order
+        List<Long> ids = slotIds.stream().distinct().sorted().toList();
+        for (Long slotId : ids) {
+            if (slotRepository.transitionStatus(slotId, SlotStatus.AVAILABLE, SlotStatus.BOOKED) == 0) {
+                if (!slotRepository.existsById(slotId)) {
+                    throw new EntityNotFoundException("Slot not found with id: " + slotId);
+                }
+                throw new BookingRejectedException(BookingRejectedException.UNAVAILABLE, "Slot " + slotId + " is either booked or expired");
+            }
+        }
+
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
+        List<Slot> slots = slotRepository.findAllById(ids)
+                .stream()
+                .sorted(Comparator.comparing(Slot::getStartTime))
+                .toList();
 
-    //cancel appointment
-    @Transactional
-    public void deleteAppointment(Long appointmentId, String username) {
-        Appointment appointment = appointmentRepository.findById(appointmentId)
-                .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with ID: " + appointmentId));
+        // check the requested slots against each other
+        for (int i = 1; i < slots.size(); i++) {
+            if (slots.get(i).getStartTime().isBefore(slots.get(i - 1).getEndTime())) {
+                throw new BookingRejectedException(BookingRejectedException.CLASH, "The selected slots overlap with each other");
+            }
+        }
 
-        // Only allow the user who booked or the provider or admin to delete
-        if (!appointment.getUser().getUsername().equals(username) &&
-                !appointment.getSlot().getProvider().getUsername().equals(username)) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You are not authorized to delete this appointment");
+        // one bounded read of the user's appointments covering every requested day
+        LocalDateTime windowStart = slots.get(0).getStartTime().toLocalDate().atStartOfDay();
+        LocalDateTime windowEnd = slots.stream()
+                .map(Slot::getEndTime)
+                .max(Comparator.naturalOrder())
+                .orElseThrow()
+                .toLocalDate().plusDays(1).atStartOfDay();
+        List<Slot> bookedSlots = appointmentRepository
+                .findByUserIdAndSlotStartTimeBeforeAndSlotEndTimeAfter(user.getId(), windowEnd, windowStart)
+                .stream()
+                .map(Appointment::getSlot)
+                .toList();
+
+        //check for max bookings per day across existing and requested slots
+        Map<LocalDate, Long> requestedPerDay = slots.stream()
+                .collect(Collectors.groupingBy(slot -> slot.getStartTime().toLocalDate(), Collectors.counting()));
+        Map<LocalDate, Long> bookedPerDay = bookedSlots.stream()
+                .collect(Collectors.groupingBy(slot -> slot.getStartTime().toLocalDate(), Collectors.counting()));
+        boolean capExceeded = requestedPerDay.entrySet().stream()
+                .anyMatch(day -> day.getValue() + bookedPerDay.getOrDefault(day.getKey(), 0L) > config.getMaxBookingsPerDay());
+
+        if (capExceeded) {
+            throw new BookingRejectedException(BookingRejectedException.CAP_EXCEEDED, "These bookings exceed the maximum number of bookings for a day");
         }
 
-        if(appointment.getStatus().equals(AppointmentStatus.EXPIRED)||appointment.getStatus().equals(AppointmentStatus.COMPLETED)){
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "This appointment is either expired or completed");
+        // check for clashing appointments
+        boolean hasClash = slots.stream().anyMatch(slot -> bookedSlots.stream().anyMatch(booked ->
+                booked.getStartTime().isBefore(slot.getEndTime())
+                        && slot.getStartTime().isBefore(booked.getEndTime())
+        ));
+
+        if (hasClash) {
+            throw new BookingRejectedException(BookingRejectedException.CLASH, "You already have an appointment that overlaps with one of these slots");
         }
 
-        Slot slot=appointment.getSlot();
-        slot.setStatus(SlotStatus.AVAILABLE);
-        slotRepository.save(slot);
-        CancellationLog cancellationLoglog = new CancellationLog();
-        cancellationLoglog.setAppointmentId(appointment.getId());
-        cancellationLoglog.setSlotId(slot.getId());
-        cancellationLoglog.setProviderId(slot.getProvider().getId());
-        cancellationLoglog.setUserId(appointment.getUser().getId());
-        cancellationLoglog.setCancelledAt(LocalDateTime.now());
-        cancellationLogRepository.save(cancellationLoglog);
-
-        log.info("Deleting appointment");
-        appointmentRepository.delete(appointment);
-        appointmentRepository.flush();
-        log.info("auto booking for next user in queue");
-        queueService.dequeueNextAndBook(appointment.getSlot().getId());
-        log.info("auto book successful");
-        meterRegistry.counter("appointments.cancelled.count").increment();
-        notificationService.sendNotification(appointment.getUser().getEmail(), "Your appointment is cancelled successfully!");
-        kafkaProducerService.sendNotification("User: " + appointment.getUser().getEmail()+"Your appointment is cancelled successfully!");
+        List<Appointment> savedAppointments = appointmentRepository.saveAll(slots.stream()
+                .map(slot -> Appointment.builder()
+                        .slot(slot)
+                        .user(user)
+                        .status(AppointmentStatus.BOOKED)
+                        .build())
+                .toList());
+
+        slots.forEach(flashBookingService::refresh);
+        slots.forEach(slot -> eventPublisher.publishEvent(SlotChangedEvent.of(slot)));
+        savedAppointments.forEach(appointment -> eventPublisher.publishEvent(AppointmentChangedEvent.of(appointment)));
+        meterRegistry.counter("appointments.booked.count").increment(savedAppointments.size());
+        notificationService.sendNotification(user.getEmail(), "Your " + savedAppointments.size() + " appointments are booked successfully!");
+        outboxService.record("User", user.getId(), "APPOINTMENTS_BOOKED", "User: " + user.getEmail() + " : " + savedAppointments.size()
+                + " appointments booked successfully for slots " + ids);
+
+        return savedAppointments
+                .stream()
+                .map(appointment -> AppointmentResponseDto.builder()
+                        .appointmentId(appointment.getId())
+                        .slotId(appointment.getSlot().getId())
+                        .description(appointment.getSlot().getDescription())
+                        .startTime(appointment.getSlot().getStartTime())
+                        .endTime(appointment.getSlot().getEndTime())
+                        .providerId(appointment.getSlot().getProvider().getId())
+                        .providerUsername(appointment.getSlot().getProvider().getUsername())
+                        .providerEmail(appointment.getSlot().getProvider().getEmail())
+                        .status(String.valueOf(appointment.getStatus()))
+                        .userUsername(user.getUsername())
+                        .build())
+                .toList();
+    }
+
+    //cancel appointment
+    @Transactional
+    public void deleteAppointment(Long appointmentId, String username) {
+        bookingMetrics.operation("cancel", () -> {
+            Appointment appointment = bookingMetrics.phase("cancel", "appointment-load", () -> appointmentRepository.findById(appointmentId))
+                    .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with ID: " + appointmentId));
+
+            // Only allow the user who booked or the provider or admin to delete
+            if (!appointment.getUser().getUsername().equals(username) &&
+                    !appointment.getSlot().getProvider().getUsername().equals(username)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You are not authorized to delete this appointment");
+            }
+
+            if(appointment.getStatus().equals(AppointmentStatus.EXPIRED)||appointment.getStatus().equals(AppointmentStatus.COMPLETED)){
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "This appointment is either expired or completed");
+            }
+
+            Slot slot=appointment.getSlot();
+            CancellationLog cancellationLoglog = new CancellationLog();
+            cancellationLoglog.setAppointmentId(appointment.getId());
+            cancellationLoglog.setSlotId(slot.getId());
+            cancellationLoglog.setProviderId(slot.getProvider().getId());
+            cancellationLoglog.setUserId(appointment.getUser().getId());
+            cancellationLoglog.setCancelledAt(LocalDateTime.now());
+            bookingMetrics.phase("cancel", "cancellation-log", () -> cancellationLogRepository.save(cancellationLoglog));
+
+            log.info("Deleting appointment");
+            bookingMetrics.phase("cancel", "delete", () -> {
+                appointmentRepository.delete(appointment);
+                appointmentRepository.flush();
+            });
+            // lock the slot and bump its version before the queue is touched, so a concurrent change fails this
+            // attempt while every queued user is still in place and a retry promotes the same one
+            bookingMetrics.phase("cancel", "slot-lock", () -> entityManager.lock(slot, LockModeType.PESSIMISTIC_FORCE_INCREMENT));
+            // the slot stays booked when it goes straight to a queued user, otherwise it is released
+            boolean promoted = bookingMetrics.phase("cancel", "promote", () -> promoteFromQueue(slot));
+            if (!promoted) {
+                slot.setStatus(SlotStatus.AVAILABLE);
+                bookingMetrics.phase("cancel", "slot-release", () -> slotRepository.save(slot));
+            }
+            flashBookingService.refresh(slot);
+            eventPublisher.publishEvent(SlotChangedEvent.of(slot));
+            eventPublisher.publishEvent(AppointmentChangedEvent.of(appointment));
+            meterRegistry.counter("appointments.cancelled.count").increment();
+            bookingMetrics.phase("cancel", "notify", () -> {
+                notificationService.sendNotification(appointment.getUser().getEmail(), "Your appointment is cancelled successfully!");
+                outboxService.record("Appointment", appointment.getId(), "APPOINTMENT_CANCELLED", "User: " + appointment.getUser().getEmail()+"Your appointment is cancelled successfully!");
+            });
+        });
+    }
+
+    // Give a slot whose booking was just cancelled to the first queued user who can still take it, checked and
+    // saved by the same path as a direct booking. Users over their daily cap or with a clash lose their entry
+    // straight away; the promoted entry is settled with this transaction, so a rollback puts it back in place.
+    private boolean promoteFromQueue(Slot slot) {
+        Optional<QueueService.Lease> lease;
+        while ((lease = queueService.claimNext(slot.getId())).isPresent()) {
+            Optional<User> user = userRepository.findById(lease.get().userId());
+            if (user.isEmpty()) {
+                log.warn("Queued user {} for slot {} no longer exists", lease.get().userId(), slot.getId());
+                queueService.ack(lease.get());
+                continue;
+            }
+            try {
+                bookClaimedSlot("promote", slot.getId(), user.get());
+                log.info("Promoted {} from the queue for slot {}", user.get().getUsername(), slot.getId());
+                return true;
+            } catch (BookingRejectedException e) {
+                log.info("Skipped queued user {} for slot {}: {}", user.get().getUsername(), slot.getId(), e.getMessage());
+                // settled now rather than at commit, so lease recovery never has to tell a skip from a rollback
+                queueService.ack(lease.get());
+            }
+        }
+        return false;
     }
 
     //complete appointment
@@ -242,7 +400,9 @@ public class AppointmentService {
         appointment.getSlot().setStatus(SlotStatus.EXPIRED);
         slotRepository.save(appointment.getSlot());
         appointmentRepository.save(appointment);
+        eventPublisher.publishEvent(SlotChangedEvent.of(appointment.getSlot()));
+        eventPublisher.publishEvent(AppointmentChangedEvent.of(appointment));
         notificationService.sendNotification(appointment.getUser().getEmail(), "Your appointment is completed successfully!");
-        kafkaProducerService.sendNotification("User: "+appointment.getUser().getEmail()+" : Your appointment is completed successfully!");
+        outboxService.record("Appointment", appointment.getId(), "APPOINTMENT_COMPLETED", "User: "+appointment.getUser().getEmail()+" : Your appointment is completed successfully!");
     }
 }
\ No newline at end of file
@@ -0,0 +1,211 @@
+package com.smartappointment.service;
+
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.projection.SlotRow;
+import com.smartappointment.util.enumerations.SlotStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// In-process index of AVAILABLE slots for "earliest slot for specialization X" searches.
+// Each specialization has a skip list ordered by start time, so nearest and range queries are a
+// log-time seek plus a short walk instead of a table scan. Slot changes arrive as slot ids on the
+// cache invalidation channel, from this node and every other, and the slots are re-read by id.
+// A periodic rebuild bounds any drift from lost messages or racing refreshes of the same slot.
+@Service
+@Slf4j
+public class AvailabilityIndex implements MessageListener {
+
+    private static final String ANY_SPECIALIZATION = "";
+
+    private final SlotRepository slotRepository;
+    private final MeterRegistry meterRegistry;
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile Index index = new Index();
+    private volatile boolean rebuilding;
+
+    // ordered by start time, id breaks ties between slots starting together
+    private record SlotKey(LocalDateTime startTime, long id) implements Comparable<SlotKey> {
+        @Override
+        public int compareTo(SlotKey other) {
+            int byStart = startTime.compareTo(other.startTime);
+            return byStart != 0 ? byStart : Long.compare(id, other.id);
+        }
+    }
+
+    private static class Index {
+        final Map<Long, SlotRow> byId = new ConcurrentHashMap<>();
+        final Map<String, ConcurrentSkipListMap<SlotKey, SlotRow>> bySpecialization = new ConcurrentHashMap<>();
+        // provider strings repeat across thousands of slots, keep one copy of each
+        final Map<String, String> strings = new ConcurrentHashMap<>();
+    }
+
+    public AvailabilityIndex(SlotRepository slotRepository,
+                             MeterRegistry meterRegistry,
+                             RedisMessageListenerContainer listenerContainer) {
+        this.slotRepository = slotRepository;
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("availability.index.size", this, AvailabilityIndex::size);
+        listenerContainer.addMessageListener(this, new ChannelTopic(SlotSnapshotCache.INVALIDATION_CHANNEL));
+    }
+
+    private static String getSpecializationKey(String specialization) {
+        return specialization == null ? ANY_SPECIALIZATION : specialization.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public int size() {
+        return index.byId.size();
+    }
+
+    // Earliest available slot starting in [from, to); to may be null for no upper bound
+    public Optional<SlotRow> findNext(String specialization, LocalDateTime from, LocalDateTime to) {
+        return window(specialization, from, to).values().stream().findFirst();
+    }
+
+    // Available slots starting in [from, to), earliest first
+    public List<SlotRow> findRange(String specialization, LocalDateTime from, LocalDateTime to, int limit) {
+        return window(specialization, from, to).values().stream().limit(limit).toList();
+    }
+
+    private NavigableMap<SlotKey, SlotRow> window(String specialization, LocalDateTime from, LocalDateTime to) {
+        ConcurrentSkipListMap<SlotKey, SlotRow> slots = index.bySpecialization.get(getSpecializationKey(specialization));
+        if (slots == null) {
+            return new ConcurrentSkipListMap<>();
+        }
+        SlotKey lower = new SlotKey(from, Long.MIN_VALUE);
+        return to == null ? slots.tailMap(lower, true) : slots.subMap(lower, true, new SlotKey(to, Long.MIN_VALUE), false);
+    }
+
+    // Re-read one slot and add, move or drop it
+    public void refresh(Long slotId) {
+        if (rebuilding) {
+            changedDuringRebuild.add(slotId);
+        }
+        try {
+            Optional<SlotRow> row = slotRepository.findRowById(slotId);
+            apply(index, slotId, row.orElse(null));
+            meterRegistry.counter("availability.index.refreshes").increment();
+        } catch (DataAccessException e) {
+            // the next rebuild picks the change up
+            log.warn("Availability index refresh failed for slot {}: {}", slotId, e.getMessage());
+        }
+    }
+
+    // Re-read slots created together with one query
+    public void refreshAll(List<Long> slotIds) {
+        if (rebuilding) {
+            changedDuringRebuild.addAll(slotIds);
+        }
+        try {
+            Map<Long, SlotRow> rows = slotRepository.findRowsByIdIn(slotIds).stream()
+                    .collect(Collectors.toMap(SlotRow::id, Function.identity()));
+            slotIds.forEach(slotId -> apply(index, slotId, rows.get(slotId)));
+            meterRegistry.counter("availability.index.refreshes").increment(slotIds.size());
+        } catch (DataAccessException e) {
+            log.warn("Availability index refresh failed for {} slots: {}", slotIds.size(), e.getMessage());
+        }
+    }
+
+    public void put(SlotRow row) {
+        apply(index, row.id(), row);
+    }
+
+    public void remove(Long slotId) {
+        apply(index, slotId, null);
+    }
+
+    // compute serialises changes to one slot, so its two skip list entries never disagree with byId
+    private void apply(Index target, Long slotId, SlotRow row) {
+        target.byId.compute(slotId, (id, previous) -> {
+            if (previous != null) {
+                SlotKey key = new SlotKey(previous.startTime(), id);
+                target.bySpecialization.get(ANY_SPECIALIZATION).remove(key);
+                target.bySpecialization.get(getSpecializationKey(previous.providerSpecialization())).remove(key);
+            }
+            if (row == null || row.status() != SlotStatus.AVAILABLE || !row.endTime().isAfter(LocalDateTime.now())) {
+                return null;
+            }
+            SlotRow indexed = canonical(target, row);
+            SlotKey key = new SlotKey(indexed.startTime(), id);
+            target.bySpecialization.computeIfAbsent(ANY_SPECIALIZATION, any -> new ConcurrentSkipListMap<>()).put(key, indexed);
+            if (indexed.providerSpecialization() != null) {
+                target.bySpecialization.computeIfAbsent(getSpecializationKey(indexed.providerSpecialization()),
+                        specialization -> new ConcurrentSkipListMap<>()).put(key, indexed);
+            }
+            return indexed;
+        });
+    }
+
+    private SlotRow canonical(Index target, SlotRow row) {
+        return new SlotRow(row.id(), row.description(), row.startTime(), row.endTime(), row.status(), row.providerId(),
+                intern(target, row.providerUsername()), intern(target, row.providerEmail()),
+                intern(target, row.providerSpecialization()));
+    }
+
+    private String intern(Index target, String value) {
+        return value == null ? null : target.strings.computeIfAbsent(value, same -> same);
+    }
+
+    // Load every open available slot into a fresh index and swap it in; changes seen meanwhile are replayed
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedRateString = "${app.availabilityIndexRebuildMillis}", initialDelayString = "${app.availabilityIndexRebuildMillis}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        rebuilding = true;
+        try (Stream<SlotRow> rows = slotRepository.streamAvailableRows(LocalDateTime.now())) {
+            index = load(rows);
+        } catch (DataAccessException e) {
+            log.error("Availability index rebuild failed: {}", e.getMessage());
+            return;
+        } finally {
+            rebuilding = false;
+        }
+        changedDuringRebuild.forEach(slotId -> {
+            changedDuringRebuild.remove(slotId);
+            refresh(slotId);
+        });
+        log.info("Availability index rebuilt with {} slots", size());
+    }
+
+    private Index load(Stream<SlotRow> rows) {
+        Index fresh = new Index();
+        rows.forEach(row -> apply(fresh, row.id(), row));
+        return fresh;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            SlotInvalidation invalidation = SlotInvalidation.parse(message.getBody());
+            if (invalidation.isBatch()) {
+                refreshAll(invalidation.slotIds());
+            } else {
+                refresh(invalidation.slotIds().get(0));
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed slot change message: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.smartappointment.service;
+
+import com.smartappointment.event.AppointmentChangedEvent;
+import com.smartappointment.event.SlotChangedEvent;
+import com.smartappointment.event.SlotsCreatedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+// Monotonic data-version counters in Redis, one per provider, one per user and one for the global slot list.
+// List endpoints turn the version into an ETag, so an unchanged list is answered with 304 before touching Postgres.
+// Counters are bumped after commit, so a version is never visible before the data it stands for.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DataVersionService {
+
+    public static final String ALL_SLOTS = "slots";
+    private static final RedisScript<Long> BUMP_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/data-version-bump.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public static String providerScope(String username) {
+        return "provider:" + username;
+    }
+
+    public static String userScope(String username) {
+        return "user:" + username;
+    }
+
+    private String getVersionKey(String scope) {
+        return "version:" + scope;
+    }
+
+    // ETag for the scope's current version, or null when Redis is unavailable and the caller should serve the full list
+    public String eTag(String scope) {
+        String version = current(scope);
+        if (version == null) {
+            return null;
+        }
+        // the scope is part of the tag so another user's cached copy can never be confirmed
+        return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(scope.getBytes(StandardCharsets.UTF_8))
+                + "-" + version + "\"";
+    }
+
+    public String current(String scope) {
+        try {
+            String version = stringRedisTemplate.opsForValue().get(getVersionKey(scope));
+            if (version != null) {
+                return version;
+            }
+            String initial = String.valueOf(System.currentTimeMillis());
+            if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(getVersionKey(scope), initial))) {
+                return initial;
+            }
+            return stringRedisTemplate.opsForValue().get(getVersionKey(scope));
+        } catch (DataAccessException e) {
+            log.warn("Data version read failed for {}: {}", scope, e.getMessage());
+            return null;
+        }
+    }
+
+    public void bump(String scope) {
+        try {
+            stringRedisTemplate.execute(BUMP_SCRIPT, List.of(getVersionKey(scope)), String.valueOf(System.currentTimeMillis()));
+            meterRegistry.counter("data.version.bumps", "result", "success").increment();
+        } catch (DataAccessException e) {
+            // clients may keep a stale list until the next successful bump for this scope
+            log.error("Data version bump failed for {}: {}", scope, e.getMessage());
+            meterRegistry.counter("data.version.bumps", "result", "error").increment();
+        }
+    }
+
+    // fallbackExecution covers changes made outside a transaction
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSlotChanged(SlotChangedEvent event) {
+        bump(ALL_SLOTS);
+        bump(providerScope(event.providerUsername()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSlotsCreated(SlotsCreatedEvent event) {
+        bump(ALL_SLOTS);
+        bump(providerScope(event.providerUsername()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        bump(userScope(event.userUsername()));
+        bump(providerScope(event.providerUsername()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.smartappointment.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.smartappointment.repository.AppointmentRepository;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.projection.AppointmentRow;
+import com.smartappointment.repository.projection.SlotRow;
+import com.smartappointment.util.enumerations.ExportFormat;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Admin exports that stream rows from a database cursor straight into the response,
+// so memory use is bounded by the fetch size and the writer buffer rather than the row count.
+// The transaction, and with it a pooled connection, stays open until the client has read the last row.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportService {
+
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            // keep columns in record component order
+            .disable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .build();
+
+    private final SlotRepository slotRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    // read-only keeps the connection out of autocommit, which Postgres needs to honour the fetch size
+    @Transactional(readOnly = true)
+    public long exportSlots(ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<SlotRow> rows = slotRepository.streamAllRows()) {
+            return write("slots", rows, SlotRow.class, format, out);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long exportAppointments(Long providerId, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<AppointmentRow> rows = providerId == null
+                ? appointmentRepository.streamAllRows()
+                : appointmentRepository.streamRowsByProviderId(providerId)) {
+            return write("appointments", rows, AppointmentRow.class, format, out);
+        }
+    }
+
+    private <T> long write(String dataset, Stream<T> rows, Class<T> type, ExportFormat format, OutputStream out) throws IOException {
+        ObjectWriter writer = switch (format) {
+            case NDJSON -> objectMapper.writerFor(type).withRootValueSeparator("\n");
+            case CSV -> CSV_MAPPER.writerFor(type).with(CSV_MAPPER.schemaFor(type).withHeader());
+        };
+
+        long count = 0;
+        // the servlet container owns the response stream, so the writer must not close it
+        try (SequenceWriter sequence = writer.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValues(out)) {
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                sequence.write(iterator.next());
+                count++;
+            }
+        }
+        // the separator only goes between values, and every NDJSON line needs a terminator
+        if (format == ExportFormat.NDJSON && count > 0) {
+            out.write('\n');
+        }
+        out.flush();
+
+        meterRegistry.counter("export.rows", "dataset", dataset, "format", format.getExtension()).increment(count);
+        log.info("Exported {} {} rows as {}", count, dataset, format);
+        return count;
+    }
+}
@@ -0,0 +1,186 @@
+package com.smartappointment.service;
+
+import com.smartappointment.dto.AppointmentResponseDto;
+import com.smartappointment.entity.Slot;
+import com.smartappointment.entity.User;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.UserRepository;
+import com.smartappointment.util.enumerations.SlotStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.errors.ResourceNotFoundException;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+// Flash mode pre-stages a slot's availability in Redis so that only the single winner of an
+// atomic claim reaches the database; everyone else is turned away by Redis alone.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FlashBookingService {
+
+    private static final String AVAILABLE = "AVAILABLE";
+    private static final String TAKEN = "TAKEN";
+    private static final RedisScript<Long> CLAIM_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/flash-claim.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/flash-release.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final SlotRepository slotRepository;
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    private String getSlotKey(Long slotId) {
+        return "flash:slot:" + slotId;
+    }
+
+    private String getProviderKey(Long providerId) {
+        return "flash:provider:" + providerId;
+    }
+
+    // Gate a booking on the flash token; slots not in flash mode go straight to the booking
+    public AppointmentResponseDto book(Long slotId, String username, Supplier<AppointmentResponseDto> booking) {
+        String key = getSlotKey(slotId);
+        String token = "CLAIMED:" + username + ":" + UUID.randomUUID();
+
+        Long claim = stringRedisTemplate.execute(CLAIM_SCRIPT, List.of(key), token);
+        if (claim == null || claim < 0) {
+            return booking.get();
+        }
+        if (claim == 0) {
+            meterRegistry.counter("flash.booking.claims", "result", "lost").increment();
+            throw new IllegalStateException("Slot is either booked or expired. You can join the waitlist for slot " + slotId);
+        }
+
+        meterRegistry.counter("flash.booking.claims", "result", "won").increment();
+        try {
+            return booking.get();
+        } catch (RuntimeException e) {
+            // the booking rolled back, so restore whatever state the database now holds
+            String state = slotRepository.findById(slotId)
+                    .filter(slot -> slot.getStatus() == SlotStatus.AVAILABLE)
+                    .map(slot -> AVAILABLE)
+                    .orElse(TAKEN);
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(key), token, state);
+            meterRegistry.counter("flash.booking.claims", "result", "released").increment();
+            throw e;
+        }
+    }
+
+    // Put a single slot into flash mode
+    public void enableForSlot(Long slotId, String username) {
+        stage(findOwnedSlot(slotId, username));
+    }
+
+    public void disableForSlot(Long slotId, String username) {
+        findOwnedSlot(slotId, username);
+        stringRedisTemplate.delete(getSlotKey(slotId));
+    }
+
+    // Put all of a provider's upcoming slots, and any slot they add later, into flash mode
+    public int enableForProvider(String username) {
+        User provider = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        stringRedisTemplate.opsForValue().set(getProviderKey(provider.getId()), "1");
+
+        List<Slot> slots = slotRepository.findByProviderId(provider.getId())
+                .stream()
+                .filter(slot -> slot.getStatus() != SlotStatus.EXPIRED)
+                .filter(slot -> slot.getEndTime().isAfter(LocalDateTime.now()))
+                .toList();
+        slots.forEach(this::stage);
+        log.info("Flash mode enabled for provider {} with {} slots", username, slots.size());
+        return slots.size();
+    }
+
+    public void disableForProvider(String username) {
+        User provider = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        stringRedisTemplate.delete(getProviderKey(provider.getId()));
+        stringRedisTemplate.delete(slotRepository.findByProviderId(provider.getId())
+                .stream()
+                .map(slot -> getSlotKey(slot.getId()))
+                .toList());
+    }
+
+    // Re-sync a slot's flash state after its status or times changed in the database.
+    // Applied once the transaction commits, so Redis never shows a change that rolled back.
+    public void refresh(Slot slot) {
+        Long slotId = slot.getId();
+        Long providerId = slot.getProvider().getId();
+        SlotStatus status = slot.getStatus();
+        LocalDateTime endTime = slot.getEndTime();
+        afterCommit(() -> {
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(getSlotKey(slotId)))
+                    || Boolean.TRUE.equals(stringRedisTemplate.hasKey(getProviderKey(providerId)))) {
+                stage(slotId, status, endTime);
+            }
+        });
+    }
+
+    // Slots created in bulk for one provider join flash mode if the provider has it on
+    public void refreshNew(Long providerId, List<Slot> slots) {
+        List<Slot> created = List.copyOf(slots);
+        afterCommit(() -> {
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(getProviderKey(providerId)))) {
+                created.forEach(this::stage);
+            }
+        });
+    }
+
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    public void remove(Long slotId) {
+        stringRedisTemplate.delete(getSlotKey(slotId));
+    }
+
+    // the key lives until the slot ends, so expired slots drop out of flash mode on their own
+    private void stage(Slot slot) {
+        stage(slot.getId(), slot.getStatus(), slot.getEndTime());
+    }
+
+    private void stage(Long slotId, SlotStatus status, LocalDateTime endTime) {
+        Duration ttl = Duration.between(LocalDateTime.now(), endTime);
+        if (ttl.isNegative() || ttl.isZero()) {
+            stringRedisTemplate.delete(getSlotKey(slotId));
+            return;
+        }
+        String state = status == SlotStatus.AVAILABLE ? AVAILABLE : TAKEN;
+        stringRedisTemplate.opsForValue().set(getSlotKey(slotId), state, ttl);
+    }
+
+    private Slot findOwnedSlot(Long slotId, String username) {
+        Slot slot = slotRepository.findById(slotId)
+                .orElseThrow(() -> new ResourceNotFoundException("Slot not found with id: " + slotId));
+        if (!slot.getProvider().getUsername().equals(username)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You are not authorized to manage this slot");
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,93 @@
+package com.smartappointment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.dto.AppointmentResponseDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    private static final String IN_PROGRESS = "IN_PROGRESS";
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final AppConfigProperties config;
+
+    private String getBookingKey(String username, String idempotencyKey) {
+        return "idempotency:booking:" + username + ":" + idempotencyKey;
+    }
+
+    // Run a booking once per Idempotency-Key; retries get the stored response back without touching the database
+    public AppointmentResponseDto executeBooking(Long slotId, String username, String idempotencyKey,
+                                                 Supplier<AppointmentResponseDto> booking) {
+        if (idempotencyKey == null) {
+            return booking.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String key = getBookingKey(username, idempotencyKey);
+        // the reservation is a short lease, so a crash before the response is stored frees the key for retries
+        Duration lease = Duration.ofSeconds(config.getIdempotencyInProgressTtlSeconds());
+        Boolean reserved = stringRedisTemplate.opsForValue().setIfAbsent(key, IN_PROGRESS, lease);
+        if (!Boolean.TRUE.equals(reserved)) {
+            return replay(key, slotId);
+        }
+
+        AppointmentResponseDto response;
+        try {
+            response = booking.get();
+        } catch (RuntimeException e) {
+            // failed bookings are not remembered, so the client can retry with the same key
+            stringRedisTemplate.delete(key);
+            throw e;
+        }
+        stringRedisTemplate.opsForValue().set(key, write(response), Duration.ofMinutes(config.getIdempotencyKeyTtlMinutes()));
+        return response;
+    }
+
+    private AppointmentResponseDto replay(String key, Long slotId) {
+        String stored = stringRedisTemplate.opsForValue().get(key);
+        if (stored == null || IN_PROGRESS.equals(stored)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A request with this Idempotency-Key is still in progress");
+        }
+        AppointmentResponseDto response = read(stored);
+        if (!slotId.equals(response.getSlotId())) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different slot");
+        }
+        log.info("Replaying stored booking response for key {}", key);
+        return response;
+    }
+
+    private String write(AppointmentResponseDto response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store booking response", e);
+        }
+    }
+
+    private AppointmentResponseDto read(String stored) {
+        try {
+            return objectMapper.readValue(stored, AppointmentResponseDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored booking response", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.smartappointment.service;
+
+import com.smartappointment.entity.OutboxEvent;
+import com.smartappointment.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+// Records Kafka notifications as outbox rows inside the caller's transaction,
+// so they commit or roll back together with the booking change itself
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String aggregateType, Long aggregateId, String eventType, String payload) {
+        outboxEventRepository.save(OutboxEvent.builder()
+                .aggregateType(aggregateType)
+                .aggregateId(aggregateId)
+                .eventType(eventType)
+                .payload(payload)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+}
@@ -0,0 +1,207 @@
+package com.smartappointment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.entity.Slot;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.projection.SlotInterval;
+import com.smartappointment.repository.projection.SlotRow;
+import com.smartappointment.util.enumerations.SlotStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Per-provider sorted map of non-expired slot intervals, so overlap checks on slot create/update are a
+// range lookup instead of a scan over the provider's whole history. Providers are loaded lazily and
+// kept in a bounded cache. This node's writes are applied after commit; other nodes' changes arrive as
+// slot ids on the cache invalidation channel and are re-read by id, a template's slots in one query.
+@Service
+@Slf4j
+public class ProviderIntervalIndex implements MessageListener {
+
+    private static final Duration IDLE_PROVIDER_EXPIRY = Duration.ofHours(1);
+
+    private final SlotRepository slotRepository;
+    private final Cache<Long, ProviderIntervals> providers;
+
+    // ordered by start time, id breaks ties between slots starting together
+    private record SlotKey(LocalDateTime startTime, long id) implements Comparable<SlotKey> {
+        @Override
+        public int compareTo(SlotKey other) {
+            int byStart = startTime.compareTo(other.startTime);
+            return byStart != 0 ? byStart : Long.compare(id, other.id);
+        }
+    }
+
+    static final class ProviderIntervals {
+        private final TreeMap<SlotKey, SlotInterval> byStart = new TreeMap<>();
+        private final Map<Long, SlotInterval> byId = new HashMap<>();
+        // an overlapping slot must start after start - longest, which bounds the range walked
+        private Duration longest = Duration.ZERO;
+
+        synchronized void put(SlotInterval interval) {
+            remove(interval.id());
+            byStart.put(new SlotKey(interval.startTime(), interval.id()), interval);
+            byId.put(interval.id(), interval);
+            Duration length = Duration.between(interval.startTime(), interval.endTime());
+            if (length.compareTo(longest) > 0) {
+                longest = length;
+            }
+        }
+
+        synchronized void remove(Long slotId) {
+            SlotInterval previous = byId.remove(slotId);
+            if (previous != null) {
+                byStart.remove(new SlotKey(previous.startTime(), slotId));
+            }
+        }
+
+        synchronized boolean overlaps(LocalDateTime start, LocalDateTime end, Long excludeSlotId) {
+            SlotKey lower = new SlotKey(start.minus(longest), Long.MIN_VALUE);
+            SlotKey upper = new SlotKey(end, Long.MIN_VALUE);
+            for (SlotInterval existing : byStart.subMap(lower, true, upper, false).values()) {
+                if (!existing.id().equals(excludeSlotId) && existing.endTime().isAfter(start)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public ProviderIntervalIndex(SlotRepository slotRepository,
+                                 AppConfigProperties config,
+                                 MeterRegistry meterRegistry,
+                                 RedisMessageListenerContainer listenerContainer) {
+        this.slotRepository = slotRepository;
+        this.providers = Caffeine.newBuilder()
+                .maximumSize(config.getProviderIntervalIndexMaxProviders())
+                .expireAfterAccess(IDLE_PROVIDER_EXPIRY)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, providers, "provider-intervals");
+        listenerContainer.addMessageListener(this, new ChannelTopic(SlotSnapshotCache.INVALIDATION_CHANNEL));
+    }
+
+    // Does [start, end) overlap any non-expired slot of the provider other than excludeSlotId
+    public boolean overlaps(Long providerId, LocalDateTime start, LocalDateTime end, Long excludeSlotId) {
+        return providers.get(providerId, this::load).overlaps(start, end, excludeSlotId);
+    }
+
+    private ProviderIntervals load(Long providerId) {
+        ProviderIntervals intervals = new ProviderIntervals();
+        slotRepository.findOpenIntervalsByProviderId(providerId).forEach(intervals::put);
+        return intervals;
+    }
+
+    // Record a saved slot once its transaction commits, so a rollback never leaves a phantom interval
+    public void slotSaved(Slot slot) {
+        Long providerId = slot.getProvider().getId();
+        SlotInterval interval = slot.getStatus() == SlotStatus.EXPIRED
+                ? null
+                : new SlotInterval(slot.getId(), slot.getStartTime(), slot.getEndTime());
+        afterCommit(() -> apply(providerId, slot.getId(), interval));
+    }
+
+    public void slotDeleted(Long providerId, Long slotId) {
+        afterCommit(() -> apply(providerId, slotId, null));
+    }
+
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    // computeIfPresent waits for an in-flight load of the same provider, so a change is never lost to it
+    private void apply(Long providerId, Long slotId, SlotInterval interval) {
+        providers.asMap().computeIfPresent(providerId, (id, intervals) -> {
+            if (interval == null) {
+                intervals.remove(slotId);
+            } else {
+                intervals.put(interval);
+            }
+            return intervals;
+        });
+    }
+
+    // Re-read one slot changed anywhere in the cluster
+    public void refresh(Long slotId) {
+        try {
+            Optional<SlotRow> row = slotRepository.findRowById(slotId);
+            if (row.isEmpty()) {
+                // deleted, and the owner is no longer known
+                providers.asMap().values().forEach(intervals -> intervals.remove(slotId));
+                return;
+            }
+            SlotRow slot = row.get();
+            apply(slot.providerId(), slotId, slot.status() == SlotStatus.EXPIRED
+                    ? null
+                    : new SlotInterval(slotId, slot.startTime(), slot.endTime()));
+        } catch (DataAccessException e) {
+            // the owner is unknown, so drop every provider and let the next check reload
+            log.warn("Provider interval refresh failed for slot {}: {}", slotId, e.getMessage());
+            providers.invalidateAll();
+        }
+    }
+
+    // Re-read one provider's slots created together, with one query
+    public void refreshAll(Long providerId, List<Long> slotIds) {
+        if (!providers.asMap().containsKey(providerId)) {
+            // not loaded here, the first check reads them anyway
+            return;
+        }
+        try {
+            Map<Long, SlotRow> rows = slotRepository.findRowsByIdIn(slotIds).stream()
+                    .collect(Collectors.toMap(SlotRow::id, Function.identity()));
+            slotIds.forEach(slotId -> {
+                SlotRow slot = rows.get(slotId);
+                apply(providerId, slotId, slot == null || slot.status() == SlotStatus.EXPIRED
+                        ? null
+                        : new SlotInterval(slotId, slot.startTime(), slot.endTime()));
+            });
+        } catch (DataAccessException e) {
+            log.warn("Provider interval refresh failed for {} slots of provider {}: {}", slotIds.size(), providerId, e.getMessage());
+            providers.invalidate(providerId);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            SlotInvalidation invalidation = SlotInvalidation.parse(message.getBody());
+            if (invalidation.isBatch()) {
+                refreshAll(invalidation.providerId(), invalidation.slotIds());
+            } else {
+                refresh(invalidation.slotIds().get(0));
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed slot change message: {}", e.getMessage());
+        }
+    }
+}
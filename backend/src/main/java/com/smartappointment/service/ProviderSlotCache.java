@@ -0,0 +1,99 @@
+package com.smartappointment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.dto.SlotResponseDto;
+import com.smartappointment.event.SlotChangedEvent;
+import com.smartappointment.event.SlotsCreatedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+// Read-through Redis cache of each provider's slot list, evicted after commit by SlotChangedEvent.
+// A generation counter per provider stops a reader that loaded before an eviction from writing stale data back.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProviderSlotCache {
+
+    private static final TypeReference<List<SlotResponseDto>> SLOT_LIST = new TypeReference<>() {
+    };
+    private static final RedisScript<Long> PUT_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/cache-put-if-generation.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final AppConfigProperties config;
+    private final MeterRegistry meterRegistry;
+
+    private String getCacheKey(String providerUsername) {
+        return "cache:provider-slots:" + providerUsername;
+    }
+
+    private String getGenerationKey(String providerUsername) {
+        return "cache:provider-slots:gen:" + providerUsername;
+    }
+
+    public List<SlotResponseDto> get(String providerUsername, Supplier<List<SlotResponseDto>> loader) {
+        String generation;
+        try {
+            String cached = stringRedisTemplate.opsForValue().get(getCacheKey(providerUsername));
+            if (cached != null) {
+                meterRegistry.counter("cache.provider.slots", "result", "hit").increment();
+                return objectMapper.readValue(cached, SLOT_LIST);
+            }
+            generation = stringRedisTemplate.opsForValue().get(getGenerationKey(providerUsername));
+        } catch (DataAccessException | JsonProcessingException e) {
+            // the cache is an optimisation, fall back to the database
+            log.warn("Provider slot cache read failed for {}: {}", providerUsername, e.getMessage());
+            meterRegistry.counter("cache.provider.slots", "result", "error").increment();
+            return loader.get();
+        }
+
+        meterRegistry.counter("cache.provider.slots", "result", "miss").increment();
+        List<SlotResponseDto> slots = loader.get();
+        try {
+            stringRedisTemplate.execute(PUT_SCRIPT,
+                    List.of(getCacheKey(providerUsername), getGenerationKey(providerUsername)),
+                    generation == null ? "0" : generation,
+                    objectMapper.writeValueAsString(slots),
+                    String.valueOf(config.getProviderSlotCacheTtlSeconds()));
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Provider slot cache write failed for {}: {}", providerUsername, e.getMessage());
+        }
+        return slots;
+    }
+
+    // fallbackExecution covers changes made outside a transaction
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSlotChanged(SlotChangedEvent event) {
+        evict(event.providerUsername());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSlotsCreated(SlotsCreatedEvent event) {
+        evict(event.providerUsername());
+    }
+
+    public void evict(String providerUsername) {
+        try {
+            stringRedisTemplate.opsForValue().increment(getGenerationKey(providerUsername));
+            stringRedisTemplate.delete(getCacheKey(providerUsername));
+            meterRegistry.counter("cache.provider.slots.evictions").increment();
+        } catch (DataAccessException e) {
+            log.warn("Provider slot cache eviction failed for {}: {}", providerUsername, e.getMessage());
+        }
+    }
+}
@@ -1,144 +1,326 @@
 package com.smartappointment.service;
 
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.dto.QueuePositionDto;
 import com.smartappointment.entity.Appointment;
-import com.smartappointment.entity.Slot;
 import com.smartappointment.entity.User;
 import com.smartappointment.repository.AppointmentRepository;
-import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.UserRepository;
+import com.smartappointment.repository.projection.SlotRow;
 import com.smartappointment.util.enumerations.AppointmentStatus;
 import com.smartappointment.util.enumerations.SlotStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class QueueService {
 
-    private final RedisTemplate<String, User> redisTemplate;
+    private static final String QUEUE_KEY_PREFIX = "queue:slot:";
+    private static final String MEMBERSHIP_KEY_PREFIX = "queue:user:";
+    // every queue entry being promoted, as "slot:user:join score" scored by its lease deadline in epoch millis
+    private static final String LEASE_KEY = "queue:leases";
+    private static final int RECOVERY_BATCH_SIZE = 100;
+    private static final ZoneId QUEUE_ZONE = ZoneId.of("Asia/Kolkata");
+    // a membership hash lingers this long after its last slot ends, then Redis drops it
+    private static final long MEMBERSHIP_GRACE_SECONDS = Duration.ofDays(1).toSeconds();
+    private static final RedisScript<Long> JOIN_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/queue-join.lua"), Long.class);
+    private static final RedisScript<String> CLAIM_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/queue-claim.lua"), String.class);
+    private static final RedisScript<Long> ACK_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/queue-ack.lua"), Long.class);
+    private static final RedisScript<Long> REQUEUE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/queue-requeue.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> EXPIRED_LEASES_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/queue-expired-leases.lua"), List.class);
+    private static final RedisScript<Long> LEAVE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/queue-leave.lua"), Long.class);
+    private static final RedisScript<Long> CLEAR_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/queue-clear.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> POSITION_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/queue-position.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> POSITIONS_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/queue-positions.lua"), List.class);
+    private static final RedisScript<Long> MIGRATE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/queue-migrate.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final UserRepository userRepository;
     private final AppointmentRepository appointmentRepository;
-    private final SlotRepository slotRepository;
+    private final SlotSnapshotCache slotSnapshotCache;
+    private final AppConfigProperties config;
+
+    // A queue entry taken off the head for promotion, held in the lease set until it is acked or requeued
+    public record Lease(Long slotId, Long userId, String joinScore) {
+
+        static Lease parse(String lease) {
+            String[] parts = lease.split(":");
+            return new Lease(Long.valueOf(parts[0]), Long.valueOf(parts[1]), parts[2]);
+        }
+
+        @Override
+        public String toString() {
+            return slotId + ":" + userId + ":" + joinScore;
+        }
+    }
 
+    // sorted set of user ids, scored by join time in epoch microseconds
     private String getQueueKey(Long slotId) {
-        return "queue:slot:" + slotId;
+        return QUEUE_KEY_PREFIX + slotId;
+    }
+
+    // user id -> (slot id -> "start:end") for every queue the user is in
+    private String getMembershipKey(Long userId) {
+        return MEMBERSHIP_KEY_PREFIX + userId;
+    }
+
+    private static long epochSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime fromEpochMicros(String micros) {
+        long value = (long) Double.parseDouble(micros);
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(value / 1_000_000, value % 1_000_000 * 1_000), QUEUE_ZONE);
+    }
+
+    // Queues used to be lists; convert any left behind before this node serves queue requests
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyQueues() {
+        int queues = 0;
+        ScanOptions options = ScanOptions.scanOptions().match(QUEUE_KEY_PREFIX + "*").count(1_000).build();
+        try (Cursor<String> keys = stringRedisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                Long moved = stringRedisTemplate.execute(MIGRATE_SCRIPT, List.of(keys.next()));
+                if (moved != null && moved > 0) {
+                    queues++;
+                }
+            }
+        } catch (DataAccessException e) {
+            log.error("Queue migration failed: {}", e.getMessage());
+            return;
+        }
+        if (queues > 0) {
+            log.info("Converted {} list queues to sorted sets", queues);
+        }
     }
 
     // Join queue
     public void joinQueue(Long slotId, User user) {
-        Slot slot = slotRepository.findById(slotId)
+        SlotRow slot = slotSnapshotCache.get(slotId)
                 .orElseThrow(() -> new RuntimeException("Slot not found"));
 
-        if (slot.getStatus().equals(SlotStatus.AVAILABLE) || LocalDateTime.now(ZoneId.of("Asia/Kolkata")).isAfter(slot.getEndTime())) {
-            throw new RuntimeException("Cannot queue for an available or expired slot");
+        LocalDateTime now = LocalDateTime.now(QUEUE_ZONE);
+        // a held slot goes back to AVAILABLE when the hold lapses, and nothing would promote its queue
+        if (slot.status().equals(SlotStatus.AVAILABLE) || slot.status().equals(SlotStatus.HELD) || now.isAfter(slot.endTime())) {
+            throw new RuntimeException("Cannot queue for an available, held or expired slot");
         }
 
-        Appointment appt = appointmentRepository.findBySlotId(slot.getId());
+        Appointment appt = appointmentRepository.findBySlotId(slot.id());
         if (appt != null && appt.getUser().getId().equals(user.getId())) {
             throw new RuntimeException("Cannot queue for your own slot");
         }
 
-        // check for clashing appointments
-        List<Appointment> existingAppointments = appointmentRepository.findByUser(user);
-
-        boolean hasClash = existingAppointments.stream().anyMatch(appointment ->
-                appointment.getSlot().getStartTime().isBefore(slot.getEndTime())
-                        && slot.getStartTime().isBefore(appointment.getSlot().getEndTime())
-        );
+        // check for clashing appointments; only a live booking blocks the window, the same check a direct booking makes
+        boolean hasClash = appointmentRepository.existsByUserIdAndStatusAndSlotStartTimeBeforeAndSlotEndTimeAfter(
+                user.getId(), AppointmentStatus.BOOKED, slot.endTime(), slot.startTime());
 
         if (hasClash) {
             throw new RuntimeException("You already have a booked appointment in this time slot");
         }
 
-        // Check queue clash
-        Set<String> keysSet = redisTemplate.keys("queue:slot:*");
-        List<String> keys = new ArrayList<>(keysSet);
-
-        for (String key : keys) {
-            List<User> queuedUsers = redisTemplate.opsForList().range(key, 0, -1);
-            for (User u : queuedUsers) {
-                Slot otherSlot = slotRepository.findById(Long.parseLong(key.split(":")[2])).get();
-                if (u.getId().equals(user.getId())
-                        && timeOverlap(otherSlot.getStartTime(), otherSlot.getEndTime(), slot.getStartTime(), slot.getEndTime())) {
-                    throw new RuntimeException("You’re already queued for a slot in the same time window");
-                }
-            }
+        // Check the user's other queues and join in one atomic step, so two concurrent joins cannot both pass
+        Long queueLength = stringRedisTemplate.execute(JOIN_SCRIPT,
+                List.of(getQueueKey(slotId), getMembershipKey(user.getId())),
+                slotId.toString(),
+                String.valueOf(epochSeconds(slot.startTime())),
+                String.valueOf(epochSeconds(slot.endTime())),
+                String.valueOf(epochSeconds(now)),
+                user.getId().toString(),
+                String.valueOf(MEMBERSHIP_GRACE_SECONDS));
+        if (queueLength == null || queueLength == 0) {
+            throw new RuntimeException("You’re already queued for a slot in the same time window");
         }
-
-        // Add to Redis list (queue)
-        redisTemplate.opsForList().rightPush(getQueueKey(slotId), user);
         log.info("User {} joined queue for slot {}", user.getUsername(), slotId);
     }
 
+    // Queued users in order, loaded with one query
     public List<User> getQueue(Long slotId) {
-
-        return redisTemplate.opsForList().range(getQueueKey(slotId), 0, -1);
+        Set<String> entries = stringRedisTemplate.opsForZSet().range(getQueueKey(slotId), 0, -1);
+        if (entries == null || entries.isEmpty()) {
+            return List.of();
+        }
+        List<Long> userIds = entries.stream().map(Long::valueOf).toList();
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return userIds.stream().map(users::get).filter(Objects::nonNull).toList();
     }
 
-    public void removeQueue(Long slotId) {
-        redisTemplate.delete(getQueueKey(slotId));
+    public long getQueueSize(Long slotId) {
+        Long size = stringRedisTemplate.opsForZSet().zCard(getQueueKey(slotId));
+        return size == null ? 0 : size;
     }
 
-    public void dequeueNextAndBook(Long slotId) {
-        User nextUser = redisTemplate.opsForList().leftPop(getQueueKey(slotId));
-        if (nextUser != null) {
-            // Book for this user
-            log.info("Auto-booking slot {} for next user in queue: {}", slotId, nextUser.getUsername());
-            Appointment appointment = new Appointment();
-            appointment.setSlot(slotRepository.findById(slotId).get());
-            appointment.setUser(nextUser);
-            appointment.setStatus(AppointmentStatus.BOOKED);
-            slotRepository.findById(appointment.getSlot().getId()).get().setStatus(SlotStatus.BOOKED);
-            log.info(appointment.toString());
-            appointmentRepository.save(appointment);
+    // One rank lookup, O(log n) in the queue length
+    public QueuePositionDto getPosition(Long slotId, User user) {
+        List<?> result = stringRedisTemplate.execute(POSITION_SCRIPT, List.of(getQueueKey(slotId)), user.getId().toString());
+        if (result == null || result.isEmpty()) {
+            throw new RuntimeException("You are not in the queue for this slot.");
         }
+        return toPosition(slotId, result, 0);
     }
 
-    public void clearQueueForSlot(Long slotId) {
-        redisTemplate.delete("queue:slot:" + slotId);
+    // Every queue the user is in, read from their membership hash in one script call
+    public List<QueuePositionDto> getPositions(User user) {
+        List<?> result = stringRedisTemplate.execute(POSITIONS_SCRIPT, List.of(getMembershipKey(user.getId())),
+                QUEUE_KEY_PREFIX, user.getId().toString());
+        if (result == null) {
+            return List.of();
+        }
+        List<QueuePositionDto> positions = new ArrayList<>();
+        for (int i = 0; i + 3 < result.size(); i += 4) {
+            positions.add(toPosition(Long.valueOf(result.get(i).toString()), result, i + 1));
+        }
+        positions.sort(Comparator.comparing(QueuePositionDto::getSlotId));
+        return positions;
     }
 
-    public void leaveQueue(Long slotId, User user) {
-        String queueKey = "queue:slot:" + slotId;
+    // rank from 0, queue length and join time in epoch microseconds, starting at offset
+    private QueuePositionDto toPosition(Long slotId, List<?> values, int offset) {
+        return QueuePositionDto.builder()
+                .slotId(slotId)
+                .position(Long.parseLong(values.get(offset).toString()) + 1)
+                .queueSize(Long.parseLong(values.get(offset + 1).toString()))
+                .joinedAt(fromEpochMicros(values.get(offset + 2).toString()))
+                .build();
+    }
 
+    public void removeQueue(Long slotId) {
+        clearQueueForSlot(slotId);
+    }
 
-        // Check if queue exists
-        if (!redisTemplate.hasKey(queueKey)) {
-            throw new RuntimeException("No queue exists for this slot.");
+    // Take the head of the queue under a lease. Inside a transaction the lease settles itself when the
+    // transaction ends: acked on commit, put back in place on rollback, unless the caller acked it first.
+    // A crash leaves it to recoverExpiredLeases.
+    public Optional<Lease> claimNext(Long slotId) {
+        String claimed = stringRedisTemplate.execute(CLAIM_SCRIPT, List.of(getQueueKey(slotId), LEASE_KEY),
+                slotId.toString(), String.valueOf(config.getQueueLeaseMillis()));
+        if (claimed == null) {
+            return Optional.empty();
         }
-
-        // Fetch current queue entries
-        List<User> queue = redisTemplate.opsForList().range(queueKey, 0, -1);
-        if (queue == null || queue.isEmpty()) {
-            throw new RuntimeException("You are not in the queue for this slot.");
+        Lease lease = Lease.parse(claimed);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    try {
+                        if (status == STATUS_COMMITTED) {
+                            ack(lease);
+                        } else {
+                            requeue(lease);
+                        }
+                    } catch (DataAccessException e) {
+                        // the lease expires and recovery settles it from the database
+                        log.warn("Could not settle queue lease {}: {}", lease, e.getMessage());
+                    }
+                }
+            });
         }
+        return Optional.of(lease);
+    }
 
-        // Check if user is in queue
-        boolean inQueue = queue.stream().anyMatch(u -> u.getId().equals(user.getId()));
-        if (!inQueue) {
-            throw new RuntimeException("You are not in the queue for this slot.");
-        }
+    // The entry is finished with, whether the user was booked or skipped
+    public boolean ack(Lease lease) {
+        Long held = stringRedisTemplate.execute(ACK_SCRIPT,
+                List.of(LEASE_KEY, getQueueKey(lease.slotId()), getMembershipKey(lease.userId())),
+                lease.toString(), lease.slotId().toString(), lease.userId().toString());
+        return held != null && held == 1;
+    }
 
-        // Remove user from queue by re-adding others (since Redis doesn't support direct list item removal)
-        queue.removeIf(u -> u.getId().equals(user.getId()));
+    // Back into the queue at the user's original place
+    public boolean requeue(Lease lease) {
+        Long requeued = stringRedisTemplate.execute(REQUEUE_SCRIPT, List.of(LEASE_KEY, getQueueKey(lease.slotId())),
+                lease.toString(), lease.userId().toString(), lease.joinScore());
+        return requeued != null && requeued == 1;
+    }
 
-        // Delete old queue and replace with updated list
-        redisTemplate.delete(queueKey);
-        for (User u : queue) {
-            redisTemplate.opsForList().rightPush(queueKey, u);
+    // Settle leases whose holder died before settling them. The database says how the promotion ended:
+    // the user holds the slot, or nobody does and the slot was released without them, and the entry is done.
+    // Skipped users are acked as they are skipped, so a lease whose slot someone else holds can only come
+    // from a promotion that never committed: the cancellation did not happen, and the user gets their place
+    // back exactly as a rollback would give it, ready for the canceller's retry.
+    @Scheduled(fixedRateString = "${app.queueLeaseRecoveryMillis}", initialDelayString = "${app.queueLeaseRecoveryMillis}")
+    @Transactional(readOnly = true)
+    public int recoverExpiredLeases() {
+        List<?> expired;
+        try {
+            expired = stringRedisTemplate.execute(EXPIRED_LEASES_SCRIPT, List.of(LEASE_KEY), String.valueOf(RECOVERY_BATCH_SIZE));
+        } catch (DataAccessException e) {
+            log.warn("Queue lease recovery failed: {}", e.getMessage());
+            return 0;
         }
+        if (expired == null) {
+            return 0;
+        }
+        int settled = 0;
+        for (Object entry : expired) {
+            Lease lease = Lease.parse(entry.toString());
+            Appointment holder = appointmentRepository.findBySlotId(lease.slotId());
+            boolean done = holder == null || holder.getUser().getId().equals(lease.userId());
+            if (done ? ack(lease) : requeue(lease)) {
+                settled++;
+                log.info("Recovered queue lease {} by {}", lease, done ? "acking" : "requeueing");
+            }
+        }
+        return settled;
     }
 
-    private boolean timeOverlap(LocalDateTime start1, LocalDateTime end1, LocalDateTime start2, LocalDateTime end2) {
-        return (start1.isBefore(end2) && start2.isBefore(end1));
+    public void clearQueueForSlot(Long slotId) {
+        stringRedisTemplate.execute(CLEAR_SCRIPT, List.of(getQueueKey(slotId)), slotId.toString(), MEMBERSHIP_KEY_PREFIX);
+    }
+
+    // One atomic script call whatever the queue length, so concurrent joins and leaves are never lost
+    public void leaveQueue(Long slotId, User user) {
+        Long result = stringRedisTemplate.execute(LEAVE_SCRIPT,
+                List.of(getQueueKey(slotId), getMembershipKey(user.getId())),
+                slotId.toString(), user.getId().toString());
+        if (result == null || result == -1) {
+            throw new RuntimeException("No queue exists for this slot.");
+        }
+        if (result == 0) {
+            throw new RuntimeException("You are not in the queue for this slot.");
+        }
     }
 }
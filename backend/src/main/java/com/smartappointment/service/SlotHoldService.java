@@ -0,0 +1,134 @@
+package com.smartappointment.service;
+
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.dto.SlotHoldResponseDto;
+import com.smartappointment.entity.Slot;
+import com.smartappointment.entity.User;
+import com.smartappointment.event.SlotChangedEvent;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.UserRepository;
+import com.smartappointment.util.enumerations.SlotStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+
+// Short-lived holds let a user reserve a slot and confirm it later without keeping a transaction open.
+// Hold deadlines sit in a Redis sorted set scored by expiry time, so the sweeper only reads holds that are due.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SlotHoldService {
+
+    static final String EXPIRY_KEY = "holds:expiry";
+    private static final int EXPIRY_BATCH_SIZE = 100;
+
+    private final SlotRepository slotRepository;
+    private final UserRepository userRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final AppConfigProperties config;
+    private final MeterRegistry meterRegistry;
+    private final FlashBookingService flashBookingService;
+    private final QueueService queueService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Hold an available slot for the configured TTL
+    @Transactional
+    public SlotHoldResponseDto hold(Long slotId, String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(config.getSlotHoldTtlSeconds());
+        if (slotRepository.placeHold(slotId, user.getId(), expiresAt) == 0) {
+            if (!slotRepository.existsById(slotId)) {
+                throw new EntityNotFoundException("Slot not found");
+            }
+            throw new IllegalStateException("Slot is either held, booked or expired");
+        }
+
+        // each hold gets its own timer entry, so clearing an old one can never drop a newer hold
+        long deadline = toEpochMillis(expiresAt);
+        stringRedisTemplate.opsForZSet().add(EXPIRY_KEY, slotId + ":" + deadline, deadline);
+        slotRepository.findById(slotId).ifPresent(this::slotChanged);
+        meterRegistry.counter("slot.holds", "result", "placed").increment();
+        log.info("Slot {} held by {} until {}", slotId, username, expiresAt);
+
+        return SlotHoldResponseDto.builder()
+                .slotId(slotId)
+                .status(String.valueOf(SlotStatus.HELD))
+                .userUsername(username)
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    // Give a held slot back before its TTL runs out
+    @Transactional
+    public void release(Long slotId, String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+        if (slotRepository.releaseHold(slotId, user.getId()) == 0) {
+            throw new IllegalStateException("You do not hold slot " + slotId);
+        }
+        // the timer entry is dropped by the sweeper once it comes due
+        slotRepository.findById(slotId).ifPresent(this::slotChanged);
+        queueService.clearQueueForSlot(slotId);
+        meterRegistry.counter("slot.holds", "result", "released").increment();
+    }
+
+    // Timer entries whose hold deadline has passed, oldest first
+    public List<String> findDueHolds() {
+        Set<String> due = stringRedisTemplate.opsForZSet()
+                .rangeByScore(EXPIRY_KEY, 0, toEpochMillis(LocalDateTime.now()), 0, EXPIRY_BATCH_SIZE);
+        if (due == null) {
+            return List.of();
+        }
+        return List.copyOf(due);
+    }
+
+    // Return due holds to AVAILABLE; confirmed or released slots no longer match and are left alone
+    @Transactional
+    public int expireHolds(List<String> timers) {
+        List<Long> slotIds = timers.stream()
+                .map(timer -> Long.valueOf(timer.substring(0, timer.indexOf(':'))))
+                .distinct()
+                .toList();
+        int expired = slotRepository.expireHolds(slotIds, LocalDateTime.now());
+        if (expired > 0) {
+            slotRepository.findAllById(slotIds).forEach(slot -> {
+                slotChanged(slot);
+                // anyone who queued behind the hold would wait on a queue that never moves
+                if (slot.getStatus() == SlotStatus.AVAILABLE) {
+                    queueService.clearQueueForSlot(slot.getId());
+                }
+            });
+            meterRegistry.counter("slot.holds", "result", "expired").increment(expired);
+            log.info("Expired {} stale slot holds", expired);
+        }
+        return expired;
+    }
+
+    // Only called once expireHolds has committed, so a failed sweep is retried on the next run
+    public void clearTimers(List<String> timers) {
+        stringRedisTemplate.opsForZSet().remove(EXPIRY_KEY, timers.toArray());
+    }
+
+    private void slotChanged(Slot slot) {
+        flashBookingService.refresh(slot);
+        eventPublisher.publishEvent(SlotChangedEvent.of(slot));
+    }
+
+    private long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,31 @@
+package com.smartappointment.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Body of a message on the slot invalidation channel: a single slot id ("42"), or a batch of slots created
+// together for one provider ("7:42,43,44") so a template costs one message and one IN query per listener
+record SlotInvalidation(Long providerId, List<Long> slotIds) {
+
+    static SlotInvalidation parse(byte[] body) {
+        String text = new String(body, StandardCharsets.UTF_8);
+        int separator = text.indexOf(':');
+        if (separator < 0) {
+            return new SlotInvalidation(null, List.of(Long.valueOf(text)));
+        }
+        List<Long> slotIds = Arrays.stream(text.substring(separator + 1).split(","))
+                .map(Long::valueOf)
+                .toList();
+        return new SlotInvalidation(Long.valueOf(text.substring(0, separator)), slotIds);
+    }
+
+    static String batch(Long providerId, List<Long> slotIds) {
+        return providerId + ":" + slotIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    boolean isBatch() {
+        return providerId != null;
+    }
+}
@@ -2,25 +2,47 @@ package com.smartappointment.service;
 
 
 import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.dto.AvailabilitySearchRequestDto;
 import com.smartappointment.dto.SlotRequestDto;
+import com.smartappointment.dto.SlotPageResponseDto;
 import com.smartappointment.dto.SlotResponseDto;
+import com.smartappointment.dto.SlotSearchRequestDto;
+import com.smartappointment.dto.SlotTemplateRequestDto;
+import com.smartappointment.dto.SlotTemplateResponseDto;
+import com.smartappointment.entity.Appointment;
 import com.smartappointment.entity.Slot;
 import com.smartappointment.entity.User;
+import com.smartappointment.event.AppointmentChangedEvent;
+import com.smartappointment.event.SlotChangedEvent;
+import com.smartappointment.event.SlotsCreatedEvent;
 import com.smartappointment.notification.NotificationService;
-import com.smartappointment.notification.kafka.producer.KafkaProducerService;
+import com.smartappointment.repository.AppointmentRepository;
 import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.SlotSpecifications;
 import com.smartappointment.repository.UserRepository;
+import com.smartappointment.repository.projection.SlotRow;
 import com.smartappointment.util.enumerations.SlotStatus;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.common.errors.ResourceNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,18 +50,36 @@ import java.util.Optional;
 @Service
 public class SlotService {
 
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    private static final Sort KEYSET_ORDER = Sort.by("startTime", "id");
+
     @Autowired
     private SlotRepository slotRepository;
     @Autowired
     private UserRepository userRepository;
     @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
     private AppConfigProperties config;
     @Autowired
     private NotificationService notificationService;
     @Autowired
-    private KafkaProducerService kafkaProducerService;
+    private OutboxService outboxService;
     @Autowired
     private QueueService queueService;
+    @Autowired
+    private FlashBookingService flashBookingService;
+    @Autowired
+    private ProviderSlotCache providerSlotCache;
+    @Autowired
+    private SlotSnapshotCache slotSnapshotCache;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private ProviderIntervalIndex providerIntervalIndex;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
 
 
@@ -50,14 +90,7 @@ public class SlotService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
         // check for clashing slots for this provider
-        List<Slot> existingSlots = slotRepository.findByProvider(provider)
-                .stream()
-                .filter(slot -> slot.getStatus() == SlotStatus.AVAILABLE || slot.getStatus() == SlotStatus.BOOKED)
-                .toList();
-        boolean hasClash = existingSlots.stream().anyMatch(existingSlot ->
-                existingSlot.getStartTime().isBefore(requestDto.getEndTime())
-                        && requestDto.getStartTime().isBefore(existingSlot.getEndTime())
-        );
+        boolean hasClash = providerIntervalIndex.overlaps(provider.getId(), requestDto.getStartTime(), requestDto.getEndTime(), null);
 
         if (hasClash) {
             throw new IllegalStateException("This provider already has a slot that overlaps with the given time range.");
@@ -77,7 +110,17 @@ public class SlotService {
         slot.setEndTime(requestDto.getEndTime());
         slot.setProvider(provider);
 
-        Slot savedSlot = slotRepository.save(slot);
+        Slot savedSlot;
+        try {
+            // flush so a constraint violation surfaces here rather than at commit
+            savedSlot = slotRepository.saveAndFlush(slot);
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent create passed the same check first
+            throw overlapOrRethrow(e, "This provider already has a slot that overlaps with the given time range.");
+        }
+        providerIntervalIndex.slotSaved(savedSlot);
+        eventPublisher.publishEvent(SlotChangedEvent.of(savedSlot));
+        flashBookingService.refresh(savedSlot);
 
         return SlotResponseDto.builder()
                 .id(savedSlot.getId())
@@ -93,61 +136,183 @@ public class SlotService {
     }
 
 
-    //get slots for a provider
-    public List<SlotResponseDto> getSlotsForProvider(String username) {
+    //create every slot of a recurring template in one batch
+    @Transactional
+    public SlotTemplateResponseDto addSlotsFromTemplate(SlotTemplateRequestDto template, String username) {
         User provider = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        return slotRepository.findByProviderId(provider.getId())
-                .stream()
-                .map(slot -> SlotResponseDto.builder()
-                        .id(slot.getId())
-                        .description(slot.getDescription())
-                        .startTime(slot.getStartTime())
-                        .endTime(slot.getEndTime())
-                        .providerId(slot.getProvider().getId())
-                        .status(slot.getStatus().name())
-                        .providerUsername(slot.getProvider().getUsername())
-                        .providerEmail(slot.getProvider().getEmail())
-                        .providerSpecialization(slot.getProvider().getSpecialization())
-                        .build())
-                .toList();
+        if (template.getSlotMinutes() < config.getMinSlotDurationMinutes() || template.getSlotMinutes() > config.getMaxSlotDurationMinutes()) {
+            throw new IllegalStateException("Slot duration must be between " + config.getMinSlotDurationMinutes()
+                    + " and " + config.getMaxSlotDurationMinutes() + " minutes.");
+        }
+        if (!template.getDayStart().isBefore(template.getDayEnd())) {
+            throw new IllegalStateException("Day start must be before day end.");
+        }
+
+        List<Slot> slots = expandTemplate(template, provider);
+        if (slots.isEmpty()) {
+            throw new IllegalStateException("This template does not produce any future slots.");
+        }
+        if (slots.size() > config.getSlotTemplateMaxSlots()) {
+            throw new IllegalStateException("A template can create at most " + config.getSlotTemplateMaxSlots() + " slots.");
+        }
+
+        // one pass over the provider's interval index; the generated slots never overlap each other
+        for (Slot slot : slots) {
+            if (providerIntervalIndex.overlaps(provider.getId(), slot.getStartTime(), slot.getEndTime(), null)) {
+                throw new IllegalStateException("This provider already has a slot that overlaps with " + slot.getStartTime() + ".");
+            }
+        }
+
+        // pooled sequence ids and hibernate.jdbc.batch_size turn this into batched inserts; the flush
+        // surfaces an overlap violation here instead of at commit
+        try {
+            slots = slotRepository.saveAllAndFlush(slots);
+        } catch (DataIntegrityViolationException e) {
+            throw overlapOrRethrow(e, "This provider already has a slot that overlaps with the given time range.");
+        }
+        slots.forEach(providerIntervalIndex::slotSaved);
+        eventPublisher.publishEvent(new SlotsCreatedEvent(slots.stream().map(Slot::getId).toList(),
+                provider.getId(), provider.getUsername()));
+        flashBookingService.refreshNew(provider.getId(), slots);
+
+        return SlotTemplateResponseDto.builder()
+                .created(slots.size())
+                .firstStartTime(slots.get(0).getStartTime())
+                .lastEndTime(slots.get(slots.size() - 1).getEndTime())
+                .build();
+    }
+
+    // back-to-back slots on each selected day, skipping any that have already started
+    private List<Slot> expandTemplate(SlotTemplateRequestDto template, User provider) {
+        List<Slot> slots = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate endDate = template.getStartDate().plusWeeks(template.getWeeks());
+        for (LocalDate date = template.getStartDate(); date.isBefore(endDate); date = date.plusDays(1)) {
+            if (!template.getDaysOfWeek().contains(date.getDayOfWeek())) {
+                continue;
+            }
+            LocalDateTime dayEnd = date.atTime(template.getDayEnd());
+            LocalDateTime start = date.atTime(template.getDayStart());
+            while (!start.plusMinutes(template.getSlotMinutes()).isAfter(dayEnd)) {
+                LocalDateTime end = start.plusMinutes(template.getSlotMinutes());
+                if (start.isAfter(now)) {
+                    Slot slot = new Slot();
+                    slot.setDescription(template.getDescription());
+                    slot.setStatus(SlotStatus.AVAILABLE);
+                    slot.setStartTime(start);
+                    slot.setEndTime(end);
+                    slot.setProvider(provider);
+                    slots.add(slot);
+                }
+                start = end;
+            }
+            // stop expanding as soon as the template is known to be too large
+            if (slots.size() > config.getSlotTemplateMaxSlots()) {
+                break;
+            }
+        }
+        return slots;
+    }
+
+    //get slots for a provider
+    public List<SlotResponseDto> getSlotsForProvider(String username) {
+        return providerSlotCache.get(username, () -> {
+            User provider = userRepository.findByUsername(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+            return slotRepository.findRowsByProviderId(provider.getId())
+                    .stream()
+                    .map(SlotRow::toResponseDto)
+                    .toList();
+        });
     }
 
     //get all slots
     public List<SlotResponseDto> getAllSlots() {
-        List<Slot> slots = slotRepository.findAll();
+        return slotRepository.findAllRows()
+                .stream()
+                .map(SlotRow::toResponseDto)
+                .toList();
+    }
 
-        return slots
+    //search slots one page at a time, ordered by start time then id
+    public SlotPageResponseDto searchSlots(SlotSearchRequestDto request) {
+        Specification<Slot> spec = SlotSpecifications.search(request.getStatus(), request.getProviderId(),
+                request.getSpecialization(), request.getFrom(), request.getTo());
+        if (request.getCursor() != null && !request.getCursor().isBlank()) {
+            spec = spec.and(decodeCursor(request.getCursor()));
+        }
+
+        // one extra row tells us whether another page exists without a count query
+        int size = request.getSize();
+        List<Slot> rows = slotRepository.findBy(spec, query -> query.sortBy(KEYSET_ORDER).limit(size + 1).all());
+        boolean hasMore = rows.size() > size;
+        List<Slot> page = hasMore ? rows.subList(0, size) : rows;
+
+        return SlotPageResponseDto.builder()
+                .slots(page.stream()
+                        .map(slot -> SlotResponseDto.builder()
+                                .id(slot.getId())
+                                .description(slot.getDescription())
+                                .startTime(slot.getStartTime())
+                                .endTime(slot.getEndTime())
+                                .providerId(slot.getProvider().getId())
+                                .status(slot.getStatus().name())
+                                .providerUsername(slot.getProvider().getUsername())
+                                .providerEmail(slot.getProvider().getEmail())
+                                .providerSpecialization(slot.getProvider().getSpecialization())
+                                .build())
+                        .toList())
+                .nextCursor(hasMore ? encodeCursor(page.get(page.size() - 1)) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // the cursor is the (startTime, id) of the last slot on the page
+    private String encodeCursor(Slot slot) {
+        String position = slot.getStartTime() + "|" + slot.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Specification<Slot> decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            return SlotSpecifications.after(LocalDateTime.parse(position[0]), Long.parseLong(position[1]));
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    //available slots for a specialization, served from the in-memory index
+    public List<SlotResponseDto> findAvailableSlots(AvailabilitySearchRequestDto request) {
+        LocalDateTime from = availabilityFrom(request);
+        return availabilityIndex.findRange(request.getSpecialization(), from, request.getTo(), request.getLimit())
                 .stream()
-                .map(slot -> SlotResponseDto.builder()
-                        .id(slot.getId())
-                        .description(slot.getDescription())
-                        .startTime(slot.getStartTime())
-                        .endTime(slot.getEndTime())
-                        .providerId(slot.getProvider().getId())
-                        .status(slot.getStatus().name())
-                        .providerUsername(slot.getProvider().getUsername())
-                        .providerEmail(slot.getProvider().getEmail())
-                        .providerSpecialization(slot.getProvider().getSpecialization())
-                        .build())
+                .map(SlotRow::toResponseDto)
                 .toList();
     }
 
+    //earliest available slot for a specialization
+    public Optional<SlotResponseDto> findNextAvailableSlot(AvailabilitySearchRequestDto request) {
+        LocalDateTime from = availabilityFrom(request);
+        return availabilityIndex.findNext(request.getSpecialization(), from, request.getTo())
+                .map(SlotRow::toResponseDto);
+    }
+
+    private LocalDateTime availabilityFrom(AvailabilitySearchRequestDto request) {
+        LocalDateTime from = request.getFrom() == null ? LocalDateTime.now() : request.getFrom();
+        if (request.getTo() != null && !from.isBefore(request.getTo())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to");
+        }
+        return from;
+    }
+
     //get slot by id
     public Optional<SlotResponseDto> getById(Long id) {
-        return slotRepository.findById(id)
-                .map(slot -> new SlotResponseDto(
-                        slot.getId(),
-                        slot.getDescription(),
-                        slot.getStartTime(),
-                        slot.getEndTime(),
-                        slot.getStatus().name(),
-                        slot.getProvider().getId(),
-                        slot.getProvider().getUsername(),
-                        slot.getProvider().getEmail(),
-                        slot.getProvider().getSpecialization()
-                ));
+        return slotSnapshotCache.get(id)
+                .map(SlotRow::toResponseDto);
     }
 
     //delete slot
@@ -166,6 +331,9 @@ public class SlotService {
         }
 
         slotRepository.deleteById(id);
+        providerIntervalIndex.slotDeleted(slot.getProvider().getId(), id);
+        eventPublisher.publishEvent(SlotChangedEvent.of(slot));
+        flashBookingService.remove(id);
         return "Slot with id: "+ id +" deleted successfully";
     }
 
@@ -186,16 +354,8 @@ public class SlotService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You are not authorized to update this slot");
         }
 
-        // Fetch all other slots for this provider (excluding current slot)
-        List<Slot> otherSlots = slotRepository.findByProviderUsername(user.getUsername()).stream()
-                .filter(s -> !s.getId().equals(id))
-                .toList();
-
-        // Check for clashing slots
-        boolean hasClash = otherSlots.stream().anyMatch(existingSlot ->
-                existingSlot.getStartTime().isBefore(request.getEndTime()) &&
-                        request.getStartTime().isBefore(existingSlot.getEndTime())
-        );
+        // Check for clashing slots of the slot's provider, excluding the slot itself
+        boolean hasClash = providerIntervalIndex.overlaps(slot.getProvider().getId(), request.getStartTime(), request.getEndTime(), id);
 
         if (hasClash) {
             throw new IllegalStateException("This update causes a time clash with an existing slot.");
@@ -206,12 +366,28 @@ public class SlotService {
         slot.setEndTime(request.getEndTime());
         slot.setDescription(request.getDescription());
 
-        Slot updatedSlot = slotRepository.save(slot);
+        // flush here so an overlap rejected by the database surfaces as the clash error, not at commit
+        Slot updatedSlot;
+        try {
+            updatedSlot = slotRepository.saveAndFlush(slot);
+        } catch (DataIntegrityViolationException e) {
+            throw overlapOrRethrow(e, "This update causes a time clash with an existing slot.");
+        }
+        providerIntervalIndex.slotSaved(updatedSlot);
+        eventPublisher.publishEvent(SlotChangedEvent.of(updatedSlot));
+        // a rescheduled booked slot also changes the patient's appointment list
+        if (updatedSlot.getStatus().equals(SlotStatus.BOOKED)) {
+            Appointment appointment = appointmentRepository.findBySlotId(id);
+            if (appointment != null) {
+                eventPublisher.publishEvent(AppointmentChangedEvent.of(appointment));
+            }
+        }
+        flashBookingService.refresh(updatedSlot);
 
         queueService.clearQueueForSlot(id);
 
         notificationService.sendNotification("","Slot: "+ id +" has been rescheduled....Please join the queue again");
-        kafkaProducerService.sendNotification("Slot: "+ id +" has been rescheduled....Please join the queue again");
+        outboxService.record("Slot", id, "SLOT_RESCHEDULED", "Slot: "+ id +" has been rescheduled....Please join the queue again");
 
         return SlotResponseDto.builder()
                 .id(updatedSlot.getId())
@@ -225,5 +401,14 @@ public class SlotService {
                 .providerSpecialization(updatedSlot.getProvider().getSpecialization())
                 .build();
     }
-}
 
+    // Postgres reports the slot overlap exclusion constraint as SQLState 23P01
+    private RuntimeException overlapOrRethrow(DataIntegrityViolationException e, String clashMessage) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && EXCLUSION_VIOLATION.equals(sqlException.getSQLState())) {
+                return new IllegalStateException(clashMessage);
+            }
+        }
+        return e;
+    }
+}
@@ -0,0 +1,185 @@
+package com.smartappointment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.event.SlotChangedEvent;
+import com.smartappointment.event.SlotsCreatedEvent;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.projection.SlotRow;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Two-level cache of slot snapshots for read paths: a bounded in-process Caffeine cache in front of Redis.
+// Invalidations are broadcast over Redis pub/sub so every node drops its local copy, and the local TTL
+// bounds staleness if a message is lost. The Redis tier reuses the generation guard from ProviderSlotCache.
+@Service
+@Slf4j
+public class SlotSnapshotCache implements MessageListener {
+
+    static final String INVALIDATION_CHANNEL = "cache:slot:invalidations";
+    private static final RedisScript<Long> PUT_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/cache-put-if-generation.lua"), Long.class);
+
+    private final SlotRepository slotRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final AppConfigProperties config;
+    private final MeterRegistry meterRegistry;
+    private final Cache<Long, CachedSlot> local;
+
+    // loadedAt travels with the snapshot so both tiers can report how old the data they serve is
+    public record CachedSlot(SlotRow slot, long loadedAt) {
+    }
+
+    public SlotSnapshotCache(SlotRepository slotRepository,
+                             StringRedisTemplate stringRedisTemplate,
+                             ObjectMapper objectMapper,
+                             AppConfigProperties config,
+                             MeterRegistry meterRegistry,
+                             RedisMessageListenerContainer listenerContainer) {
+        this.slotRepository = slotRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(config.getSlotCacheMaxEntries())
+                .expireAfterWrite(Duration.ofSeconds(config.getSlotCacheLocalTtlSeconds()))
+                .recordStats()
+                .build();
+        // size and eviction gauges for the local tier
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "slot-snapshots");
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    private String getCacheKey(Long slotId) {
+        return "cache:slot:" + slotId;
+    }
+
+    private String getGenerationKey(Long slotId) {
+        return "cache:slot:gen:" + slotId;
+    }
+
+    public Optional<SlotRow> get(Long slotId) {
+        CachedSlot cached = local.getIfPresent(slotId);
+        if (cached != null) {
+            hit("local", cached);
+            return Optional.of(cached.slot());
+        }
+        miss("local");
+
+        String generation;
+        try {
+            String json = stringRedisTemplate.opsForValue().get(getCacheKey(slotId));
+            if (json != null) {
+                cached = objectMapper.readValue(json, CachedSlot.class);
+                hit("redis", cached);
+                local.put(slotId, cached);
+                return Optional.of(cached.slot());
+            }
+            generation = stringRedisTemplate.opsForValue().get(getGenerationKey(slotId));
+        } catch (DataAccessException | JsonProcessingException e) {
+            // without Redis we cannot hear invalidations, so do not populate the local tier either
+            log.warn("Slot cache read failed for slot {}: {}", slotId, e.getMessage());
+            meterRegistry.counter("cache.slot", "tier", "redis", "result", "error").increment();
+            return slotRepository.findRowById(slotId);
+        }
+        miss("redis");
+
+        Optional<SlotRow> row = slotRepository.findRowById(slotId);
+        row.ifPresent(slot -> store(slotId, new CachedSlot(slot, System.currentTimeMillis()), generation));
+        return row;
+    }
+
+    private void store(Long slotId, CachedSlot cached, String generation) {
+        try {
+            Long stored = stringRedisTemplate.execute(PUT_SCRIPT,
+                    List.of(getCacheKey(slotId), getGenerationKey(slotId)),
+                    generation == null ? "0" : generation,
+                    objectMapper.writeValueAsString(cached),
+                    String.valueOf(config.getSlotCacheRedisTtlSeconds()));
+            // a concurrent eviction moved the generation on, so this snapshot may already be stale
+            if (Long.valueOf(1L).equals(stored)) {
+                local.put(slotId, cached);
+            }
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Slot cache write failed for slot {}: {}", slotId, e.getMessage());
+        }
+    }
+
+    // fallbackExecution covers changes made outside a transaction
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSlotChanged(SlotChangedEvent event) {
+        evict(event.slotId());
+    }
+
+    // New slots were never cached, so there is nothing to evict; other nodes' indexes still need the ids,
+    // which go out as one batch message so each listener loads them with a single query
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSlotsCreated(SlotsCreatedEvent event) {
+        if (event.slotIds().isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, SlotInvalidation.batch(event.providerId(), event.slotIds()));
+        } catch (DataAccessException e) {
+            log.warn("Slot creation broadcast failed for {} slots: {}", event.slotIds().size(), e.getMessage());
+        }
+    }
+
+    public void evict(Long slotId) {
+        local.invalidate(slotId);
+        try {
+            stringRedisTemplate.opsForValue().increment(getGenerationKey(slotId));
+            // the generation only has to outlive any snapshot that could still be written under it
+            stringRedisTemplate.expire(getGenerationKey(slotId), Duration.ofSeconds(2L * config.getSlotCacheRedisTtlSeconds()));
+            stringRedisTemplate.delete(getCacheKey(slotId));
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, slotId.toString());
+            meterRegistry.counter("cache.slot.evictions", "source", "local").increment();
+        } catch (DataAccessException e) {
+            log.warn("Slot cache eviction failed for slot {}: {}", slotId, e.getMessage());
+        }
+    }
+
+    // Invalidations from any node, including this one
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            List<Long> slotIds = SlotInvalidation.parse(message.getBody()).slotIds();
+            local.invalidateAll(slotIds);
+            meterRegistry.counter("cache.slot.evictions", "source", "remote").increment(slotIds.size());
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed slot cache invalidation: {}", e.getMessage());
+        }
+    }
+
+    private void hit(String tier, CachedSlot cached) {
+        meterRegistry.counter("cache.slot", "tier", tier, "result", "hit").increment();
+        meterRegistry.timer("cache.slot.age", "tier", tier)
+                .record(Math.max(0, System.currentTimeMillis() - cached.loadedAt()), TimeUnit.MILLISECONDS);
+    }
+
+    private void miss(String tier) {
+        meterRegistry.counter("cache.slot", "tier", tier, "result", "miss").increment();
+    }
+}
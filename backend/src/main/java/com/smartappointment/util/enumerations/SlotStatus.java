@@ -1,5 +1,5 @@
 package com.smartappointment.util.enumerations;
 
 public enum SlotStatus {
-    AVAILABLE,BOOKED,EXPIRED
+    AVAILABLE,BOOKED,EXPIRED,HELD
 }
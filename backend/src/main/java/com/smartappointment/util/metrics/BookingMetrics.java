@@ -0,0 +1,99 @@
+package com.smartappointment.util.metrics;
+
+import com.smartappointment.exception.BookingRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.common.errors.ResourceNotFoundException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+// Latency timers for the booking paths, published with percentile histograms so p99 can be read per phase.
+// booking.operation times a whole call and booking.phase each step inside it, both tagged by outcome.
+@Component
+@RequiredArgsConstructor
+public class BookingMetrics {
+
+    public static final String SUCCESS = "success";
+    public static final String NOT_FOUND = "not-found";
+    public static final String ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+
+    // Time a whole operation, tagging it with the outcome it ended in
+    public <T> T operation(String operation, Supplier<T> action) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = ERROR;
+        try {
+            T result = action.get();
+            outcome = SUCCESS;
+            return result;
+        } catch (RuntimeException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            sample.stop(timer("booking.operation", "operation", operation, "outcome", outcome));
+        }
+    }
+
+    public void operation(String operation, Runnable action) {
+        operation(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // Time one step of an operation, tagging it with the outcome it ended in
+    public <T> T phase(String operation, String phase, Supplier<T> action) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = ERROR;
+        try {
+            T result = action.get();
+            outcome = SUCCESS;
+            return result;
+        } catch (RuntimeException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            sample.stop(timer("booking.phase", "operation", operation, "phase", phase, "outcome", outcome));
+        }
+    }
+
+    public void phase(String operation, String phase, Runnable action) {
+        phase(operation, phase, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // Record an operation whose outcome is known without an exception, e.g. an empty queue
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void stop(Timer.Sample sample, String operation, String outcome) {
+        sample.stop(timer("booking.operation", "operation", operation, "outcome", outcome));
+    }
+
+    private Timer timer(String name, String... tags) {
+        return Timer.builder(name)
+                .tags(tags)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private String outcomeOf(RuntimeException e) {
+        if (e instanceof BookingRejectedException rejected) {
+            return rejected.getOutcome();
+        }
+        if (e instanceof EntityNotFoundException || e instanceof ResourceNotFoundException
+                || e instanceof UsernameNotFoundException) {
+            return NOT_FOUND;
+        }
+        return ERROR;
+    }
+}
@@ -0,0 +1,68 @@
+package com.smartappointment.util.retry;
+
+import com.smartappointment.config.AppConfigProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Re-runs a transactional service call when it loses an optimistic version check.
+// Call it from outside the transaction so every attempt starts with fresh reads.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OptimisticLockRetryExecutor {
+
+    private final MeterRegistry meterRegistry;
+    private final AppConfigProperties config;
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        int maxAttempts = Math.max(1, config.getOptimisticLockMaxAttempts());
+        long backoff = config.getOptimisticLockBackoffMillis();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                meterRegistry.counter("optimistic.lock.conflicts", "operation", operation).increment();
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("optimistic.lock.exhausted", "operation", operation).increment();
+                    log.warn("{} gave up after {} conflicting attempts", operation, attempt);
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "The resource was modified concurrently, please try again");
+                }
+                meterRegistry.counter("optimistic.lock.retries", "operation", operation).increment();
+                log.info("{} hit a concurrent update, retrying (attempt {} of {})", operation, attempt + 1, maxAttempts);
+                pause(backoff);
+                backoff = Math.min(backoff * 2, config.getOptimisticLockMaxBackoffMillis());
+            }
+        }
+    }
+
+    public void run(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // full jitter, so competing writers do not retry in lockstep
+    private void pause(long backoffMillis) {
+        if (backoffMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMillis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while retrying");
+        }
+    }
+}
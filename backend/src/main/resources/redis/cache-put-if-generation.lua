@@ -0,0 +1,9 @@
+-- KEYS[1] cache key, KEYS[2] generation key
+-- ARGV[1] generation observed before loading, ARGV[2] value, ARGV[3] ttl in seconds
+-- Skips the write when an eviction happened while the value was being loaded
+local current = redis.call('GET', KEYS[2]) or '0'
+if current ~= ARGV[1] then
+    return 0
+end
+redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3])
+return 1
@@ -0,0 +1,8 @@
+-- KEYS[1] version key
+-- ARGV[1] current time in millis, the starting value when the key is missing
+-- Starting from the clock instead of 1 stops versions repeating after Redis loses a key
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return redis.call('INCR', KEYS[1])
+end
+redis.call('SET', KEYS[1], ARGV[1])
+return tonumber(ARGV[1])
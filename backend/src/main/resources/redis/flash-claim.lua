@@ -0,0 +1,12 @@
+-- Claim a flash slot's availability token.
+-- KEYS[1] flash key of the slot, ARGV[1] claim token
+-- Returns 1 when claimed, 0 when already taken, -1 when the slot is not in flash mode
+local state = redis.call('GET', KEYS[1])
+if not state then
+    return -1
+end
+if state == 'AVAILABLE' then
+    redis.call('SET', KEYS[1], ARGV[1], 'KEEPTTL')
+    return 1
+end
+return 0
@@ -0,0 +1,8 @@
+-- Hand back a flash claim after the database booking failed.
+-- KEYS[1] flash key of the slot, ARGV[1] claim token, ARGV[2] state to restore
+-- Returns 1 when restored, 0 when the key no longer holds this claim
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    redis.call('SET', KEYS[1], ARGV[2], 'KEEPTTL')
+    return 1
+end
+return 0
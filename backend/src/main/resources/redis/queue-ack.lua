@@ -0,0 +1,9 @@
+-- Settle a lease whose entry is done with, booked or skipped, and drop the slot from the user's membership hash.
+-- KEYS[1] lease set, KEYS[2] queue of the slot, KEYS[3] membership hash of the user
+-- ARGV[1] lease, ARGV[2] slot id, ARGV[3] user id
+-- Returns 1 when the lease was still held, 0 when it had already been settled.
+-- The entry is also removed from the queue in case recovery put it back before a slow commit finished.
+local held = redis.call('ZREM', KEYS[1], ARGV[1])
+redis.call('ZREM', KEYS[2], ARGV[3])
+redis.call('HDEL', KEYS[3], ARGV[2])
+return held
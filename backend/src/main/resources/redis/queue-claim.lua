@@ -0,0 +1,14 @@
+-- Pop the head of a slot's queue under a lease, so a crash before the booking commits cannot lose the entry.
+-- KEYS[1] queue of the slot, KEYS[2] lease set (lease -> deadline in epoch millis)
+-- ARGV[1] slot id, ARGV[2] lease duration in millis
+-- Returns the lease "slot:user:join score", or false when the queue is empty.
+-- The user keeps their membership until the lease is acked, so they cannot join an overlapping queue meanwhile.
+local head = redis.call('ZPOPMIN', KEYS[1])
+if #head == 0 then
+    return false
+end
+local time = redis.call('TIME')
+local deadline = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) + tonumber(ARGV[2])
+local lease = ARGV[1] .. ':' .. head[1] .. ':' .. head[2]
+redis.call('ZADD', KEYS[2], string.format('%d', deadline), lease)
+return lease
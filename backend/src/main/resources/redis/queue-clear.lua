@@ -0,0 +1,11 @@
+-- Delete a slot's queue and drop the slot from every queued user's membership hash.
+-- KEYS[1] queue of the slot
+-- ARGV[1] slot id, ARGV[2] membership key prefix
+-- Returns the number of entries removed.
+-- Membership keys come from the entries themselves, which assumes a single Redis node, as configured in RedisConfig.
+local entries = redis.call('ZRANGE', KEYS[1], 0, -1)
+for _, entry in ipairs(entries) do
+    redis.call('HDEL', ARGV[2] .. entry, ARGV[1])
+end
+redis.call('DEL', KEYS[1])
+return #entries
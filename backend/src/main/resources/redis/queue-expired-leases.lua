@@ -0,0 +1,6 @@
+-- Leases past their deadline, oldest first, measured on the Redis clock that set them.
+-- KEYS[1] lease set
+-- ARGV[1] maximum number of leases returned
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+return redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', string.format('%d', now), 'LIMIT', 0, tonumber(ARGV[1]))
@@ -0,0 +1,29 @@
+-- Join a slot's queue unless the user is already queued for an overlapping window.
+-- KEYS[1] queue of the slot (sorted set of user ids scored by join time), KEYS[2] membership hash of the user (slot id -> "start:end")
+-- ARGV[1] slot id, ARGV[2] slot start, ARGV[3] slot end, ARGV[4] now (all times in epoch seconds),
+-- ARGV[5] queue entry (the user id), ARGV[6] seconds the membership outlives its last slot
+-- Returns the new queue length, or 0 when the user is already queued in that window
+local start, finish, now = tonumber(ARGV[2]), tonumber(ARGV[3]), tonumber(ARGV[4])
+local latest = finish
+local memberships = redis.call('HGETALL', KEYS[2])
+for i = 1, #memberships, 2 do
+    local otherStart, otherEnd = string.match(memberships[i + 1], '(%-?%d+):(%-?%d+)')
+    otherStart, otherEnd = tonumber(otherStart), tonumber(otherEnd)
+    if otherEnd <= now then
+        -- the slot is over, its queue is gone or about to be
+        redis.call('HDEL', KEYS[2], memberships[i])
+    else
+        if memberships[i] == ARGV[1] or (otherStart < finish and start < otherEnd) then
+            return 0
+        end
+        if otherEnd > latest then
+            latest = otherEnd
+        end
+    end
+end
+-- scored by the Redis clock in microseconds, so joins from every node order the same way
+local time = redis.call('TIME')
+redis.call('ZADD', KEYS[1], 'NX', string.format('%d', tonumber(time[1]) * 1000000 + tonumber(time[2])), ARGV[5])
+redis.call('HSET', KEYS[2], ARGV[1], ARGV[2] .. ':' .. ARGV[3])
+redis.call('EXPIRE', KEYS[2], latest - now + tonumber(ARGV[6]))
+return redis.call('ZCARD', KEYS[1])
@@ -0,0 +1,10 @@
+-- Remove a user from a slot's queue and drop the slot from the user's membership hash.
+-- KEYS[1] queue of the slot, KEYS[2] membership hash of the user
+-- ARGV[1] slot id, ARGV[2] user id
+-- Returns 1 when removed, 0 when the user is not queued, -1 when the slot has no queue
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+local removed = redis.call('ZREM', KEYS[1], ARGV[2])
+redis.call('HDEL', KEYS[2], ARGV[1])
+return removed
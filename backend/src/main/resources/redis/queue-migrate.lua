@@ -0,0 +1,20 @@
+-- Convert a queue stored as a list into the sorted set used now, keeping its order.
+-- KEYS[1] queue of the slot
+-- Returns the number of entries moved, 0 when the key is not a list.
+-- List entries are user ids, or whole users as JSON from before entries were ids.
+if redis.call('TYPE', KEYS[1]).ok ~= 'list' then
+    return 0
+end
+local entries = redis.call('LRANGE', KEYS[1], 0, -1)
+redis.call('DEL', KEYS[1])
+-- scores end just before now, so the old queue stays ahead of anyone joining later
+local time = redis.call('TIME')
+local first = tonumber(time[1]) * 1000000 + tonumber(time[2]) - #entries
+for i, entry in ipairs(entries) do
+    local userId = entry
+    if string.sub(entry, 1, 1) == '{' then
+        userId = string.format('%d', cjson.decode(entry).id)
+    end
+    redis.call('ZADD', KEYS[1], 'NX', string.format('%d', first + i - 1), userId)
+end
+return #entries
@@ -0,0 +1,9 @@
+-- Where a user stands in one slot's queue.
+-- KEYS[1] queue of the slot
+-- ARGV[1] user id
+-- Returns {rank from 0, queue length, join time in epoch microseconds}, or false when the user is not queued
+local rank = redis.call('ZRANK', KEYS[1], ARGV[1])
+if not rank then
+    return false
+end
+return {tostring(rank), tostring(redis.call('ZCARD', KEYS[1])), redis.call('ZSCORE', KEYS[1], ARGV[1])}
@@ -0,0 +1,17 @@
+-- Where a user stands in every queue they belong to, read in one call.
+-- KEYS[1] membership hash of the user (slot id -> "start:end")
+-- ARGV[1] queue key prefix, ARGV[2] user id
+-- Returns slot id, rank from 0, queue length and join time in epoch microseconds for each queue, flattened.
+-- Queue keys come from the membership hash, which assumes a single Redis node, as configured in RedisConfig.
+local result = {}
+for _, slotId in ipairs(redis.call('HKEYS', KEYS[1])) do
+    local queue = ARGV[1] .. slotId
+    local rank = redis.call('ZRANK', queue, ARGV[2])
+    if rank then
+        table.insert(result, slotId)
+        table.insert(result, tostring(rank))
+        table.insert(result, tostring(redis.call('ZCARD', queue)))
+        table.insert(result, redis.call('ZSCORE', queue, ARGV[2]))
+    end
+end
+return result
@@ -0,0 +1,9 @@
+-- Give up a lease and put its entry back with its original join score, so the user keeps their place.
+-- KEYS[1] lease set, KEYS[2] queue of the slot
+-- ARGV[1] lease, ARGV[2] user id, ARGV[3] join score
+-- Returns 1 when requeued, 0 when the lease had already been settled.
+if redis.call('ZREM', KEYS[1], ARGV[1]) == 0 then
+    return 0
+end
+redis.call('ZADD', KEYS[2], 'NX', ARGV[3], ARGV[2])
+return 1
@@ -62,6 +62,14 @@ class GlobalExceptionHandlerTest {
         assertEquals("Slot already booked", response.getBody().getMessage());
     }
 
+    @Test
+    void testHandleIllegalArgumentException() {
+        var ex = new IllegalArgumentException("Unsupported export format: xml");
+        var response = handler.handleIllegalArgumentException(ex);
+        assertEquals(400, response.getStatusCodeValue());
+        assertEquals("Unsupported export format: xml", response.getBody().getMessage());
+    }
+
     @Test
     void testHandleMethodArgumentTypeMismatch() {
         var ex = new MethodArgumentTypeMismatchException("abc", Long.class, "id", null, new IllegalArgumentException("Invalid"));
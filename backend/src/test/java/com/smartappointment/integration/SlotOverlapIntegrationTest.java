@@ -0,0 +1,99 @@
+package com.smartappointment.integration;
+
+import com.smartappointment.dto.SlotRequestDto;
+import com.smartappointment.entity.Slot;
+import com.smartappointment.entity.User;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.UserRepository;
+import com.smartappointment.service.SlotService;
+import com.smartappointment.util.enumerations.SlotStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The overlap exclusion constraint must reach addSlot's clash handling, not surface later at commit
+@SpringBootTest
+@Testcontainers
+@TestPropertySource(properties = {
+        "spring.kafka.topic.name=test-topic",
+        "app.kafka.enabled=false"
+})
+class SlotOverlapIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7").withExposedPorts(6379);
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("spring.data.redis.host", redis::getHost);
+        registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379));
+    }
+
+    @Autowired
+    private SlotService slotService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SlotRepository slotRepository;
+
+    @Test
+    void overlapMissedByTheIndexIsReportedAsAClash() {
+        User provider = userRepository.save(User.builder()
+                .username("overlap-doc")
+                .email("overlap-doc@clinic.com")
+                .password("pass")
+                .role("PROVIDER")
+                .specialization("Cardiology")
+                .build());
+        LocalDateTime start = LocalDateTime.now().plusDays(2).withSecond(0).withNano(0);
+        // loads the provider into the interval index
+        slotService.addSlot(request(start), provider.getUsername());
+
+        // written behind the index's back, as a concurrent create on another node would be
+        slotRepository.saveAndFlush(Slot.builder()
+                .provider(provider)
+                .description("Other node")
+                .startTime(start.plusHours(2))
+                .endTime(start.plusHours(2).plusMinutes(30))
+                .status(SlotStatus.AVAILABLE)
+                .build());
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () ->
+                slotService.addSlot(request(start.plusHours(2).plusMinutes(15)), provider.getUsername()));
+
+        assertTrue(ex.getMessage().contains("overlaps"));
+        assertEquals(2, slotRepository.findByProvider(provider).size());
+    }
+
+    private SlotRequestDto request(LocalDateTime start) {
+        return SlotRequestDto.builder()
+                .description("Consult")
+                .status("AVAILABLE")
+                .startTime(start)
+                .endTime(start.plusMinutes(30))
+                .build();
+    }
+}
@@ -0,0 +1,142 @@
+package com.smartappointment.performance;
+
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.projection.SlotRow;
+import com.smartappointment.service.AvailabilityIndex;
+import com.smartappointment.util.enumerations.SlotStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// Availability index answers against a linear scan, plus query latency at production-like size (-Pperformance);
+// the index is plain Java, so no containers are needed
+@Slf4j
+class AvailabilityIndexBenchmarkTest {
+
+    private static final int SLOTS = Integer.getInteger("availability.benchmark.slots", 1_000_000);
+    private static final int CHECKED_SLOTS = 20_000;
+    private static final String[] SPECIALIZATIONS = {"Cardiology", "Dermatology", "Neurology", "Pediatrics", "Orthopedics",
+            "Psychiatry", "Oncology", "Radiology", "Urology", "Gastroenterology"};
+    private static final int WARMUP_QUERIES = 50_000;
+    private static final int MEASURED_QUERIES = 200_000;
+
+    private final LocalDateTime base = LocalDateTime.now().plusDays(1).withSecond(0).withNano(0);
+
+    @Test
+    void nearestQueriesMatchALinearScan() {
+        List<SlotRow> rows = rows(CHECKED_SLOTS);
+        AvailabilityIndex index = index(rows);
+        assertEquals(CHECKED_SLOTS, index.size());
+
+        long spanMinutes = spanMinutes(CHECKED_SLOTS);
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime from = base.plusMinutes(random.nextLong(spanMinutes));
+            String specialization = SPECIALIZATIONS[random.nextInt(SPECIALIZATIONS.length)];
+            Optional<SlotRow> earliest = scan(rows, specialization, from);
+            assertTrue(earliest.isPresent() || from.isAfter(base.plusMinutes(spanMinutes - 600)));
+            assertEquals(earliest.map(SlotRow::id), index.findNext(specialization, from, null).map(SlotRow::id));
+        }
+    }
+
+    @Test
+    @Tag("performance")
+    void nearestAndRangeQueriesStayInMicrosecondsAtOneMillionSlots() {
+        List<SlotRow> rows = rows(SLOTS);
+        long loadStart = System.nanoTime();
+        AvailabilityIndex index = index(rows);
+        log.info("Indexed {} slots in {} ms", index.size(), (System.nanoTime() - loadStart) / 1_000_000);
+        assertEquals(SLOTS, index.size());
+
+        long spanMinutes = spanMinutes(SLOTS);
+        Random random = new Random(42);
+        Consumer<Random> nearest = r -> index.findNext(SPECIALIZATIONS[r.nextInt(SPECIALIZATIONS.length)],
+                base.plusMinutes(r.nextLong(spanMinutes)), null);
+        Consumer<Random> range = r -> {
+            LocalDateTime from = base.plusMinutes(r.nextLong(spanMinutes));
+            index.findRange(SPECIALIZATIONS[r.nextInt(SPECIALIZATIONS.length)], from, from.plusDays(7), 20);
+        };
+
+        long[] nearestNanos = measure(nearest, random);
+        long[] rangeNanos = measure(range, random);
+        report("nearest", nearestNanos);
+        report("range(7d, 20)", rangeNanos);
+
+        // the old approach: every request filters the full list
+        long scanStart = System.nanoTime();
+        int scans = 20;
+        for (int i = 0; i < scans; i++) {
+            scan(rows, SPECIALIZATIONS[random.nextInt(SPECIALIZATIONS.length)], base.plusMinutes(random.nextLong(spanMinutes)));
+        }
+        log.info("Linear scan over {} slots: {} us/query", SLOTS, (System.nanoTime() - scanStart) / scans / 1_000);
+
+        assertTrue(percentile(nearestNanos, 0.99) < 1_000_000, "nearest p99 above 1 ms");
+        assertTrue(percentile(rangeNanos, 0.99) < 1_000_000, "range p99 above 1 ms");
+    }
+
+    // 200 providers, each with a slot every few hours
+    private List<SlotRow> rows(int count) {
+        List<SlotRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long provider = i % 200;
+            LocalDateTime start = base.plusMinutes(30L * (i / 200) * 3 + provider);
+            rows.add(new SlotRow((long) i, "Consult", start, start.plusMinutes(30), SlotStatus.AVAILABLE, provider,
+                    "doc" + provider, "doc" + provider + "@clinic.com", SPECIALIZATIONS[(int) (provider % SPECIALIZATIONS.length)]));
+        }
+        return rows;
+    }
+
+    private AvailabilityIndex index(List<SlotRow> rows) {
+        AvailabilityIndex index = new AvailabilityIndex(mock(SlotRepository.class), new SimpleMeterRegistry(),
+                mock(RedisMessageListenerContainer.class));
+        rows.forEach(index::put);
+        return index;
+    }
+
+    private long spanMinutes(int count) {
+        return 30L * (count / 200) * 3;
+    }
+
+    private Optional<SlotRow> scan(List<SlotRow> rows, String specialization, LocalDateTime from) {
+        return rows.stream()
+                .filter(row -> row.providerSpecialization().equals(specialization) && !row.startTime().isBefore(from))
+                .min(Comparator.comparing(SlotRow::startTime));
+    }
+
+    private long[] measure(Consumer<Random> query, Random random) {
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            query.accept(random);
+        }
+        long[] nanos = new long[MEASURED_QUERIES];
+        for (int i = 0; i < MEASURED_QUERIES; i++) {
+            long start = System.nanoTime();
+            query.accept(random);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private long percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(p * sorted.length))];
+    }
+
+    private void report(String query, long[] sorted) {
+        log.info("Availability index {}: p50 {} us, p99 {} us, p99.9 {} us", query,
+                percentile(sorted, 0.50) / 1_000.0, percentile(sorted, 0.99) / 1_000.0, percentile(sorted, 0.999) / 1_000.0);
+    }
+}
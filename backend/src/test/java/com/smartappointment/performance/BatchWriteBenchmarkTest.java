@@ -0,0 +1,142 @@
+package com.smartappointment.performance;
+
+import com.smartappointment.entity.Slot;
+import com.smartappointment.entity.User;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.UserRepository;
+import com.smartappointment.service.OutboxService;
+import com.smartappointment.util.enumerations.SlotStatus;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Bulk slot creation and scheduler-shaped expiry with one statement per row (the identity-era behaviour)
+// against the configured JDBC batching; the session batch size is switched per run
+@Slf4j
+@Tag("performance")
+@SpringBootTest
+@Testcontainers
+@TestPropertySource(properties = {
+        "spring.kafka.topic.name=test-topic",
+        "app.kafka.enabled=false"
+})
+class BatchWriteBenchmarkTest {
+
+    private static final int ROWS = 5_000;
+    private static final int UNBATCHED = 1;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+    }
+
+    @Autowired
+    private SlotRepository slotRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void batchedWritesBeatRowAtATimeWrites() {
+        // warm up connections, sequences and statement caches
+        createSlots(provider("warmup-doc"), 500, null);
+
+        long unbatchedCreate = createSlots(provider("unbatched-doc"), ROWS, UNBATCHED);
+        long batchedCreate = createSlots(provider("batched-doc"), ROWS, null);
+        long unbatchedExpire = expireSlots("unbatched-doc", UNBATCHED);
+        long batchedExpire = expireSlots("batched-doc", null);
+
+        log.info("Create {} slots: {} ms one row per statement, {} ms batched", ROWS, unbatchedCreate, batchedCreate);
+        log.info("Expire {} slots with outbox rows: {} ms one row per statement, {} ms batched", ROWS, unbatchedExpire, batchedExpire);
+        assertTrue(batchedCreate < unbatchedCreate, "batched inserts should be faster");
+        assertTrue(batchedExpire < unbatchedExpire, "batched updates should be faster");
+    }
+
+    private User provider(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@clinic.com")
+                .password("pass")
+                .role("PROVIDER")
+                .specialization("Cardiology")
+                .build());
+    }
+
+    // batchSize null keeps the configured hibernate.jdbc.batch_size
+    private long createSlots(User provider, int count, Integer batchSize) {
+        LocalDateTime base = LocalDateTime.now().minusDays(30);
+        List<Slot> slots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = base.plusMinutes(30L * i);
+            slots.add(Slot.builder()
+                    .provider(provider)
+                    .description("Bulk slot " + i)
+                    .startTime(start)
+                    .endTime(start.plusMinutes(30))
+                    .status(SlotStatus.AVAILABLE)
+                    .build());
+        }
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            useBatchSize(batchSize);
+            slotRepository.saveAll(slots);
+        });
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    // the shape of Scheduler.expireOldSlots: flip each past slot to EXPIRED and record an outbox row for it
+    private long expireSlots(String username, Integer batchSize) {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            useBatchSize(batchSize);
+            List<Slot> past = slotRepository.findByProviderUsername(username).stream()
+                    .filter(slot -> slot.getEndTime().isBefore(LocalDateTime.now()))
+                    .toList();
+            assertFalse(past.isEmpty());
+            for (Slot slot : past) {
+                slot.setStatus(SlotStatus.EXPIRED);
+                outboxService.record("Slot", slot.getId(), "SLOT_EXPIRED", "Slot: " + slot.getId() + " expired!!");
+            }
+        });
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private void useBatchSize(Integer batchSize) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+    }
+}
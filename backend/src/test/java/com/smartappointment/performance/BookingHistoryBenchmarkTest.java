@@ -0,0 +1,138 @@
+package com.smartappointment.performance;
+
+import com.smartappointment.entity.Slot;
+import com.smartappointment.entity.User;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.UserRepository;
+import com.smartappointment.service.AppointmentService;
+import com.smartappointment.util.enumerations.SlotStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+@Tag("performance")
+@SpringBootTest
+@Testcontainers
+@TestPropertySource(properties = {
+        "spring.kafka.topic.name=test-topic",
+        "app.kafka.enabled=false"
+})
+class BookingHistoryBenchmarkTest {
+
+    private static final int PAST_APPOINTMENTS = 10_000;
+    private static final int WARMUP_BOOKINGS = 5;
+    private static final int MEASURED_BOOKINGS = 20;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+    }
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SlotRepository slotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void bookingLatencyDoesNotGrowWithUserHistory() {
+        User provider = saveUser("history-doc", "PROVIDER");
+        User freshUser = saveUser("fresh-user", "USER");
+        User heavyUser = saveUser("heavy-user", "USER");
+
+        // 10k past appointments for the heavy user, each on its own expired slot
+        jdbcTemplate.update("""
+                insert into slot (description, start_time, end_time, status, provider_id)
+                select 'past', now() - (g || ' hours')::interval - interval '30 minutes', now() - (g || ' hours')::interval, 'EXPIRED', ?
+                from generate_series(1, ?) g""", provider.getId(), PAST_APPOINTMENTS);
+        jdbcTemplate.update("""
+                insert into appointment (user_id, slot_id, status)
+                select ?, id, 'EXPIRED' from slot where provider_id = ? and description = 'past'""",
+                heavyUser.getId(), provider.getId());
+        jdbcTemplate.execute("analyze");
+
+        int bookingsPerUser = WARMUP_BOOKINGS + MEASURED_BOOKINGS;
+        List<Slot> freshSlots = futureSlots(provider, 0, bookingsPerUser);
+        List<Slot> heavySlots = futureSlots(provider, bookingsPerUser, bookingsPerUser);
+
+        long freshMedian = medianBookingNanos(freshUser, freshSlots);
+        long heavyMedian = medianBookingNanos(heavyUser, heavySlots);
+
+        log.info("Booking median latency: fresh user={}us, user with {} past appointments={}us",
+                freshMedian / 1_000, PAST_APPOINTMENTS, heavyMedian / 1_000);
+
+        // flat within noise: a history scan would be orders of magnitude slower
+        assertTrue(heavyMedian < freshMedian * 3 + 20_000_000L,
+                "booking latency grew with history: " + freshMedian + "ns vs " + heavyMedian + "ns");
+    }
+
+    private long medianBookingNanos(User user, List<Slot> slots) {
+        List<Long> samples = new ArrayList<>();
+        for (int i = 0; i < slots.size(); i++) {
+            long begin = System.nanoTime();
+            appointmentService.createAppointment(slots.get(i).getId(), user.getUsername());
+            if (i >= WARMUP_BOOKINGS) {
+                samples.add(System.nanoTime() - begin);
+            }
+        }
+        samples.sort(Long::compare);
+        return samples.get(samples.size() / 2);
+    }
+
+    // one slot per day, so the daily booking cap never interferes with the measurement
+    private List<Slot> futureSlots(User provider, int dayOffset, int count) {
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withHour(10).withMinute(0).withSecond(0).withNano(0);
+        List<Slot> slots = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = base.plusDays(dayOffset + i);
+            slots.add(Slot.builder()
+                    .provider(provider)
+                    .description("future")
+                    .startTime(start)
+                    .endTime(start.plusMinutes(30))
+                    .status(SlotStatus.AVAILABLE)
+                    .build());
+        }
+        return slotRepository.saveAll(slots);
+    }
+
+    private User saveUser(String username, String role) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("pass")
+                .role(role)
+                .build());
+    }
+}
@@ -0,0 +1,151 @@
+package com.smartappointment.performance;
+
+import com.smartappointment.entity.User;
+import com.smartappointment.repository.UserRepository;
+import com.smartappointment.service.ExportService;
+import com.smartappointment.util.enumerations.ExportFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+@Tag("performance")
+@SpringBootTest
+@Testcontainers
+@TestPropertySource(properties = {
+        "spring.kafka.topic.name=test-topic",
+        "app.kafka.enabled=false"
+})
+class ExportThroughputTest {
+
+    private static final int[] ROW_COUNTS = {20_000, 200_000};
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+    }
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exportThroughputAndHeapStayFlatAsRowsGrow() throws Exception {
+        User provider = userRepository.save(User.builder()
+                .username("export-doc")
+                .email("export-doc@clinic.com")
+                .password("pass")
+                .role("PROVIDER")
+                .specialization("Cardiology")
+                .build());
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        int seeded = 0;
+        List<Long> heapGrowth = new ArrayList<>();
+        for (int rows : ROW_COUNTS) {
+            seed(provider.getId(), seeded, rows - seeded);
+            seeded = rows;
+
+            for (ExportFormat format : ExportFormat.values()) {
+                CountingOutputStream out = new CountingOutputStream();
+                System.gc();
+                long heapBefore = memory.getHeapMemoryUsage().getUsed();
+                long begin = System.nanoTime();
+                long exported = exportService.exportSlots(format, out);
+                double seconds = (System.nanoTime() - begin) / 1e9;
+                System.gc();
+                long heapAfter = memory.getHeapMemoryUsage().getUsed();
+
+                assertEquals(rows, exported);
+                assertEquals(format == ExportFormat.CSV ? rows + 1 : rows, out.lines);
+                if (format == ExportFormat.NDJSON) {
+                    heapGrowth.add(heapAfter - heapBefore);
+                }
+                log.info("Export {} rows as {}: {} rows/s, {} MB written, retained heap delta {} KB", rows, format,
+                        Math.round(rows / seconds), out.bytes / (1024 * 1024), (heapAfter - heapBefore) / 1024);
+            }
+        }
+
+        // nothing from the export should survive it, whatever the row count
+        heapGrowth.forEach(delta -> assertTrue(delta < 32L * 1024 * 1024, "export retained heap: " + heapGrowth));
+    }
+
+    private void seed(Long providerId, int offset, int count) {
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 0, 0);
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = offset; i < offset + count; i++) {
+            LocalDateTime start = base.plusMinutes(30L * i);
+            batch.add(new Object[]{"Export slot " + i, Timestamp.valueOf(start), Timestamp.valueOf(start.plusMinutes(30)),
+                    "AVAILABLE", providerId});
+            if (batch.size() == 5_000) {
+                insert(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insert(batch);
+        }
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("insert into slot (description, start_time, end_time, status, provider_id, version) " +
+                "values (?, ?, ?, ?, ?, 0)", batch);
+    }
+
+    // discards the export, counting what a client would have received
+    private static class CountingOutputStream extends OutputStream {
+        long bytes;
+        long lines;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
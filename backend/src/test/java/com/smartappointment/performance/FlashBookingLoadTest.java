@@ -0,0 +1,151 @@
+package com.smartappointment.performance;
+
+import com.smartappointment.entity.Slot;
+import com.smartappointment.entity.User;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.UserRepository;
+import com.smartappointment.service.AppointmentService;
+import com.smartappointment.service.FlashBookingService;
+import com.smartappointment.util.enumerations.SlotStatus;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+@SpringBootTest
+@Testcontainers
+@TestPropertySource(properties = {
+        "spring.kafka.topic.name=test-topic",
+        "app.kafka.enabled=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class FlashBookingLoadTest {
+
+    private static final int[] REQUEST_RATES = {100, 400, 1600};
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("spring.redis.host", redis::getHost);
+        registry.add("spring.redis.port", () -> redis.getMappedPort(6379));
+    }
+
+    @Autowired
+    private FlashBookingService flashBookingService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SlotRepository slotRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void databaseStatementsStayFlatAsFlashRequestRateGrows() throws Exception {
+        User provider = userRepository.save(User.builder()
+                .username("flash-doc")
+                .email("flash-doc@clinic.com")
+                .password("pass")
+                .role("PROVIDER")
+                .build());
+        User fan = userRepository.save(User.builder()
+                .username("flash-fan")
+                .email("flash-fan@example.com")
+                .password("pass")
+                .role("USER")
+                .build());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<Long> statementsPerRun = new ArrayList<>();
+        for (int i = 0; i < REQUEST_RATES.length; i++) {
+            int requests = REQUEST_RATES[i];
+            LocalDateTime start = LocalDateTime.now().plusDays(i + 1);
+            Slot slot = slotRepository.save(Slot.builder()
+                    .provider(provider)
+                    .description("Flash slot " + i)
+                    .startTime(start)
+                    .endTime(start.plusMinutes(30))
+                    .status(SlotStatus.AVAILABLE)
+                    .build());
+            flashBookingService.enableForSlot(slot.getId(), provider.getUsername());
+
+            long statementsBefore = statistics.getPrepareStatementCount();
+            long begin = System.nanoTime();
+            int winners = fire(requests, slot.getId(), fan.getUsername());
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            long statements = statistics.getPrepareStatementCount() - statementsBefore;
+
+            assertEquals(1, winners);
+            assertEquals(SlotStatus.BOOKED, slotRepository.findById(slot.getId()).orElseThrow().getStatus());
+            statementsPerRun.add(statements);
+            log.info("Flash booking: {} requests at {} req/s -> {} SQL statements", requests,
+                    Math.round(requests / seconds), statements);
+        }
+
+        // only the winner reaches Postgres, so statement count is independent of request volume
+        long baseline = statementsPerRun.get(0);
+        statementsPerRun.forEach(statements -> assertTrue(statements <= baseline + 2,
+                "database work grew with request rate: " + statementsPerRun));
+    }
+
+    private int fire(int requests, Long slotId, String username) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        CountDownLatch startGate = new CountDownLatch(1);
+        AtomicInteger winners = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            futures.add(pool.submit(() -> {
+                startGate.await();
+                try {
+                    flashBookingService.book(slotId, username, () -> appointmentService.createAppointment(slotId, username));
+                    winners.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    // lost the flash claim
+                }
+                return null;
+            }));
+        }
+        startGate.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        return winners.get();
+    }
+}
@@ -0,0 +1,129 @@
+package com.smartappointment.performance;
+
+import com.smartappointment.entity.Appointment;
+import com.smartappointment.entity.Slot;
+import com.smartappointment.entity.User;
+import com.smartappointment.repository.AppointmentRepository;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.UserRepository;
+import com.smartappointment.service.AppointmentService;
+import com.smartappointment.service.SlotService;
+import com.smartappointment.util.enumerations.AppointmentStatus;
+import com.smartappointment.util.enumerations.SlotStatus;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Testcontainers
+@TestPropertySource(properties = {
+        "spring.kafka.topic.name=test-topic",
+        "app.kafka.enabled=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ListingQueryCountTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+    }
+
+    @Autowired
+    private SlotService slotService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SlotRepository slotRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void listingStatementCountDoesNotGrowWithRows() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Long> small = measure(statistics, 5, "small");
+        Map<String, Long> large = measure(statistics, 50, "large");
+
+        assertEquals(small, large, "statement count per listing grew with row count");
+        assertEquals(1L, large.get("getAllSlots"));
+        assertEquals(1L, large.get("getUserAppointments"));
+        assertEquals(1L, large.get("getProviderAppointments"));
+    }
+
+    // seeds one provider and one user with the given number of booked slots, then counts statements per listing
+    private Map<String, Long> measure(Statistics statistics, int rows, String prefix) {
+        User provider = userRepository.save(User.builder()
+                .username(prefix + "-doc")
+                .email(prefix + "-doc@clinic.com")
+                .password("pass")
+                .role("PROVIDER")
+                .specialization("Cardiology")
+                .build());
+        User user = userRepository.save(User.builder()
+                .username(prefix + "-user")
+                .email(prefix + "-user@example.com")
+                .password("pass")
+                .role("USER")
+                .build());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < rows; i++) {
+            Slot slot = slotRepository.save(Slot.builder()
+                    .provider(provider)
+                    .description("Slot " + i)
+                    .startTime(start.plusHours(i))
+                    .endTime(start.plusHours(i).plusMinutes(30))
+                    .status(SlotStatus.BOOKED)
+                    .build());
+            appointmentRepository.save(Appointment.builder()
+                    .slot(slot)
+                    .user(user)
+                    .status(AppointmentStatus.BOOKED)
+                    .build());
+        }
+
+        return Map.of(
+                "getAllSlots", count(statistics, () -> slotService.getAllSlots()),
+                "getSlotsForProvider", count(statistics, () -> slotService.getSlotsForProvider(provider.getUsername())),
+                "getUserAppointments", count(statistics, () -> appointmentService.getUserAppointments(user.getUsername())),
+                "getProviderAppointments", count(statistics, () -> appointmentService.getProviderAppointments(provider.getUsername())));
+    }
+
+    private long count(Statistics statistics, Supplier<?> listing) {
+        long before = statistics.getPrepareStatementCount();
+        listing.get();
+        return statistics.getPrepareStatementCount() - before;
+    }
+}
@@ -0,0 +1,122 @@
+package com.smartappointment.performance;
+
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.projection.SlotInterval;
+import com.smartappointment.service.ProviderIntervalIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Overlap checks for a provider with a long slot history, against the per-request scan they replace;
+// the latency run is tagged performance and only runs with -Pperformance
+@Slf4j
+class ProviderIntervalIndexBenchmarkTest {
+
+    private static final int SLOTS = Integer.getInteger("intervals.benchmark.slots", 100_000);
+    private static final int CHECKED_SLOTS = 10_000;
+    private static final int WARMUP_CHECKS = 50_000;
+    private static final int MEASURED_CHECKS = 200_000;
+
+    private final LocalDateTime base = LocalDateTime.now().plusDays(1).withSecond(0).withNano(0);
+
+    @Test
+    void overlapChecksMatchALinearScan() {
+        List<SlotInterval> intervals = intervals(CHECKED_SLOTS);
+        ProviderIntervalIndex index = index(intervals);
+        assertFalse(index.overlaps(1L, base.minusHours(1), base, null));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            check(index, CHECKED_SLOTS, random);
+            LocalDateTime start = base.plusHours(random.nextInt(CHECKED_SLOTS)).plusMinutes(35);
+            assertFalse(scan(intervals, start, start.plusMinutes(20)));
+        }
+    }
+
+    @Test
+    @Tag("performance")
+    void overlapChecksStayInMicrosecondsForLargeProviderHistory() {
+        List<SlotInterval> intervals = intervals(SLOTS);
+        ProviderIntervalIndex index = index(intervals);
+
+        long loadStart = System.nanoTime();
+        assertFalse(index.overlaps(1L, base.minusHours(1), base, null));
+        log.info("Loaded {} intervals in {} ms", SLOTS, (System.nanoTime() - loadStart) / 1_000_000);
+
+        Random random = new Random(42);
+        for (int i = 0; i < WARMUP_CHECKS; i++) {
+            check(index, SLOTS, random);
+        }
+        long[] nanos = new long[MEASURED_CHECKS];
+        for (int i = 0; i < MEASURED_CHECKS; i++) {
+            long start = System.nanoTime();
+            check(index, SLOTS, random);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        log.info("Interval index overlap check: p50 {} us, p99 {} us, p99.9 {} us",
+                percentile(nanos, 0.50) / 1_000.0, percentile(nanos, 0.99) / 1_000.0, percentile(nanos, 0.999) / 1_000.0);
+
+        // the old approach: every create or update filters the provider's full history
+        int scans = 50;
+        long scanStart = System.nanoTime();
+        for (int i = 0; i < scans; i++) {
+            LocalDateTime start = base.plusHours(random.nextInt(SLOTS)).plusMinutes(35);
+            assertFalse(scan(intervals, start, start.plusMinutes(20)));
+        }
+        log.info("Linear scan over {} slots: {} us/check", SLOTS, (System.nanoTime() - scanStart) / scans / 1_000);
+
+        assertTrue(percentile(nanos, 0.99) < 1_000_000, "overlap check p99 above 1 ms");
+    }
+
+    // a 30 minute slot every hour, leaving a free half hour between them
+    private List<SlotInterval> intervals(int count) {
+        List<SlotInterval> intervals = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = base.plusHours(i);
+            intervals.add(new SlotInterval((long) i, start, start.plusMinutes(30)));
+        }
+        return intervals;
+    }
+
+    private ProviderIntervalIndex index(List<SlotInterval> intervals) {
+        SlotRepository slotRepository = mock(SlotRepository.class);
+        when(slotRepository.findOpenIntervalsByProviderId(1L)).thenReturn(intervals);
+        AppConfigProperties config = new AppConfigProperties();
+        config.setProviderIntervalIndexMaxProviders(10);
+        return new ProviderIntervalIndex(slotRepository, config, new SimpleMeterRegistry(),
+                mock(RedisMessageListenerContainer.class));
+    }
+
+    private boolean scan(List<SlotInterval> intervals, LocalDateTime start, LocalDateTime end) {
+        return intervals.stream().anyMatch(existing ->
+                existing.startTime().isBefore(end) && start.isBefore(existing.endTime()));
+    }
+
+    // alternate free gaps and clashing requests, checking the answer each time
+    private void check(ProviderIntervalIndex index, int slots, Random random) {
+        LocalDateTime hour = base.plusHours(random.nextInt(slots));
+        boolean clashing = random.nextBoolean();
+        LocalDateTime start = clashing ? hour.plusMinutes(10) : hour.plusMinutes(35);
+        if (index.overlaps(1L, start, start.plusMinutes(20), null) != clashing) {
+            fail("wrong overlap answer at " + start);
+        }
+    }
+
+    private long percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(p * sorted.length))];
+    }
+}
@@ -0,0 +1,51 @@
+package com.smartappointment.performance;
+
+import com.smartappointment.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Bytes stored and moved per queue operation: whole users as JSON (the old entry format) against user ids.
+// Redis stores a list element as the raw bytes, so the payload size is what each entry costs in memory
+// and on the wire; the list node overhead is the same for both formats.
+@Slf4j
+class QueueEntryFootprintTest {
+
+    private static final int QUEUE_LENGTH = 100;
+
+    @Test
+    void idEntriesAreAFractionOfSerializedUsers() {
+        Jackson2JsonRedisSerializer<User> userSerializer = new Jackson2JsonRedisSerializer<>(User.class);
+        List<byte[]> userEntries = new ArrayList<>();
+        List<byte[]> idEntries = new ArrayList<>();
+        for (int i = 0; i < QUEUE_LENGTH; i++) {
+            long id = 100_000L + i;
+            User user = User.builder()
+                    .id(id)
+                    .username("patient" + id)
+                    .email("patient" + id + "@example.com")
+                    // a bcrypt hash, which the old entries carried along
+                    .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z9pD9RL0sP6Y2jX4zCz0bJ1u")
+                    .role("USER")
+                    .build();
+            userEntries.add(userSerializer.serialize(user));
+            idEntries.add(Long.toString(id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        long userBytes = userEntries.stream().mapToLong(entry -> entry.length).sum();
+        long idBytes = idEntries.stream().mapToLong(entry -> entry.length).sum();
+        log.info("Per entry: {} bytes as a user, {} bytes as an id", userBytes / QUEUE_LENGTH, idBytes / QUEUE_LENGTH);
+        // a range reads the whole queue, the old leave rewrote it as well
+        log.info("Range of {} entries: {} bytes as users, {} bytes as ids", QUEUE_LENGTH, userBytes, idBytes);
+        log.info("Leave rewrite of {} entries: {} bytes as users, {} bytes as ids", QUEUE_LENGTH, 2 * userBytes, 2 * idBytes);
+
+        assertTrue(new String(userEntries.get(0), StandardCharsets.UTF_8).contains("password"));
+        assertTrue(idBytes * 10 < userBytes, "id entries should be over 10x smaller");
+    }
+}
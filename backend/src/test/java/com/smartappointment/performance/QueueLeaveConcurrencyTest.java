@@ -0,0 +1,131 @@
+package com.smartappointment.performance;
+
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.entity.User;
+import com.smartappointment.repository.AppointmentRepository;
+import com.smartappointment.repository.UserRepository;
+import com.smartappointment.repository.projection.SlotRow;
+import com.smartappointment.service.QueueService;
+import com.smartappointment.service.SlotSnapshotCache;
+import com.smartappointment.util.enumerations.SlotStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Half of a queue leaves while as many new users join, all at once, against a real Redis.
+// The old read-delete-rebuild leave dropped joins that landed mid-rebuild; every join must survive now.
+@Slf4j
+@Testcontainers
+class QueueLeaveConcurrencyTest {
+
+    private static final long SLOT_ID = 100L;
+    private static final int QUEUED = 200;
+    private static final int JOINERS = 200;
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7").withExposedPorts(6379);
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate stringRedisTemplate;
+    private QueueService queueService;
+
+    @BeforeEach
+    void setup() {
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+        stringRedisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+
+        SlotSnapshotCache slotSnapshotCache = mock(SlotSnapshotCache.class);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        when(slotSnapshotCache.get(SLOT_ID)).thenReturn(Optional.of(new SlotRow(SLOT_ID, "Popular", start, start.plusMinutes(30),
+                SlotStatus.BOOKED, 2L, "provider1", "p@example.com", "Cardiology")));
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+        queueService = new QueueService(stringRedisTemplate, mock(UserRepository.class), appointmentRepository, slotSnapshotCache,
+                new AppConfigProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void concurrentLeavesNeverLoseConcurrentJoins() throws Exception {
+        for (long id = 1; id <= QUEUED; id++) {
+            queueService.joinQueue(SLOT_ID, user(id));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+        Set<String> expected = new HashSet<>();
+        for (long id = 1; id <= QUEUED; id++) {
+            User queued = user(id);
+            if (id % 2 == 0) {
+                tasks.add(pool.submit(() -> {
+                    go.await();
+                    queueService.leaveQueue(SLOT_ID, queued);
+                    return null;
+                }));
+            } else {
+                expected.add(Long.toString(id));
+            }
+        }
+        for (long id = QUEUED + 1; id <= QUEUED + JOINERS; id++) {
+            User joiner = user(id);
+            expected.add(Long.toString(id));
+            tasks.add(pool.submit(() -> {
+                go.await();
+                queueService.joinQueue(SLOT_ID, joiner);
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        go.countDown();
+        for (Future<?> task : tasks) {
+            task.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        log.info("{} leaves and {} joins finished in {} ms", QUEUED / 2, JOINERS, (System.nanoTime() - begin) / 1_000_000);
+
+        List<String> queue = new ArrayList<>(stringRedisTemplate.opsForZSet().range("queue:slot:" + SLOT_ID, 0, -1));
+        assertEquals(expected.size(), queue.size());
+        assertEquals(expected, new HashSet<>(queue));
+        // the survivors of the original queue keep their relative order ahead of every new joiner
+        List<String> originals = queue.subList(0, QUEUED / 2);
+        assertEquals(originals.stream().sorted((a, b) -> Long.compare(Long.parseLong(a), Long.parseLong(b))).toList(), originals);
+        // membership follows the queue: leavers are gone from their hashes, stayers and joiners are recorded
+        for (long id = 1; id <= QUEUED + JOINERS; id++) {
+            boolean member = stringRedisTemplate.opsForHash().hasKey("queue:user:" + id, Long.toString(SLOT_ID));
+            assertEquals(expected.contains(Long.toString(id)), member, "membership of user " + id);
+        }
+    }
+
+    private User user(long id) {
+        return User.builder().id(id).username("user" + id).build();
+    }
+}
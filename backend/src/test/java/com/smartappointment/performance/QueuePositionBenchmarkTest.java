@@ -0,0 +1,125 @@
+package com.smartappointment.performance;
+
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.dto.QueuePositionDto;
+import com.smartappointment.entity.User;
+import com.smartappointment.repository.AppointmentRepository;
+import com.smartappointment.repository.UserRepository;
+import com.smartappointment.service.QueueService;
+import com.smartappointment.service.SlotSnapshotCache;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// Position lookups in a long queue, against the old way of reading the whole list to find a user.
+// The queue starts as a legacy list so the startup conversion is exercised on the way; the timing
+// comparison is tagged performance and only runs with -Pperformance.
+@Slf4j
+@Testcontainers
+class QueuePositionBenchmarkTest {
+
+    private static final int QUEUED = 100_000;
+    private static final int CHECKED = 5_000;
+    private static final int LOOKUPS = 2_000;
+    private static final String QUEUE_KEY = "queue:slot:100";
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7").withExposedPorts(6379);
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate stringRedisTemplate;
+    private QueueService queueService;
+
+    @BeforeEach
+    void setup() {
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+        stringRedisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+        queueService = new QueueService(stringRedisTemplate, mock(UserRepository.class), mock(AppointmentRepository.class),
+                mock(SlotSnapshotCache.class), new AppConfigProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void conversionKeepsQueueOrder() {
+        seed(CHECKED);
+        queueService.migrateLegacyQueues();
+        assertEquals(CHECKED, queueService.getQueueSize(100L));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            long id = 1 + random.nextInt(CHECKED);
+            assertEquals(id, queueService.getPosition(100L, User.builder().id(id).build()).getPosition());
+        }
+    }
+
+    @Test
+    @Tag("performance")
+    void positionLookupsStayFlatInLongQueues() {
+        seed(QUEUED);
+        long migrateStart = System.nanoTime();
+        queueService.migrateLegacyQueues();
+        log.info("Converted a {} entry list queue in {} ms", QUEUED, (System.nanoTime() - migrateStart) / 1_000_000);
+        assertEquals(QUEUED, queueService.getQueueSize(100L));
+
+        Random random = new Random(42);
+        long[] rankNanos = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            long id = 1 + random.nextInt(QUEUED);
+            long start = System.nanoTime();
+            QueuePositionDto position = queueService.getPosition(100L, User.builder().id(id).build());
+            rankNanos[i] = System.nanoTime() - start;
+            // conversion keeps list order
+            assertEquals(id, position.getPosition());
+        }
+
+        // the old way: download the list and search it
+        int scans = 20;
+        long scanStart = System.nanoTime();
+        for (int i = 0; i < scans; i++) {
+            String id = Integer.toString(1 + random.nextInt(QUEUED));
+            assertNotNull(stringRedisTemplate.opsForList().range("legacy:queue", 0, -1).indexOf(id));
+        }
+        long scanMicros = (System.nanoTime() - scanStart) / scans / 1_000;
+
+        Arrays.sort(rankNanos);
+        long p50 = rankNanos[LOOKUPS / 2] / 1_000;
+        long p99 = rankNanos[LOOKUPS * 99 / 100] / 1_000;
+        log.info("Position in a {} entry queue: p50 {} us, p99 {} us; full list read {} us", QUEUED, p50, p99, scanMicros);
+        assertTrue(p50 * 10 < scanMicros, "rank lookup should be far cheaper than reading the list");
+    }
+
+    // the slot queue and a copy to scan, as legacy lists
+    private void seed(int queued) {
+        List<String> entries = new ArrayList<>(queued);
+        for (int id = 1; id <= queued; id++) {
+            // a few legacy whole-user entries among the ids
+            entries.add(id % 1_000 == 0 ? "{\"id\":" + id + ",\"username\":\"user" + id + "\"}" : Integer.toString(id));
+        }
+        for (int from = 0; from < queued; from += 10_000) {
+            stringRedisTemplate.opsForList().rightPushAll(QUEUE_KEY, entries.subList(from, Math.min(queued, from + 10_000)));
+        }
+        stringRedisTemplate.opsForList().rightPushAll("legacy:queue", entries);
+    }
+}
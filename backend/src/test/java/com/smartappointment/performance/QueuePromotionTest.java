@@ -0,0 +1,180 @@
+package com.smartappointment.performance;
+
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.entity.Appointment;
+import com.smartappointment.entity.User;
+import com.smartappointment.repository.AppointmentRepository;
+import com.smartappointment.repository.UserRepository;
+import com.smartappointment.repository.projection.SlotRow;
+import com.smartappointment.service.QueueService;
+import com.smartappointment.service.SlotSnapshotCache;
+import com.smartappointment.util.enumerations.SlotStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Lease-based promotion against a real Redis: claim and ack throughput, and recovery after a holder dies mid-promotion
+@Slf4j
+@Testcontainers
+class QueuePromotionTest {
+
+    private static final int SLOTS = 2_000;
+    private static final long LEASE_MILLIS = 200;
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7").withExposedPorts(6379);
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate stringRedisTemplate;
+    private AppointmentRepository appointmentRepository;
+    private QueueService queueService;
+
+    @BeforeEach
+    void setup() {
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+        stringRedisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+
+        SlotSnapshotCache slotSnapshotCache = mock(SlotSnapshotCache.class);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        when(slotSnapshotCache.get(anyLong())).thenAnswer(invocation -> {
+            long slotId = invocation.getArgument(0);
+            // one hour apart, so a user can queue for many slots
+            LocalDateTime slotStart = start.plusHours(slotId);
+            return Optional.of(new SlotRow(slotId, "Popular", slotStart, slotStart.plusMinutes(30), SlotStatus.BOOKED,
+                    2L, "provider1", "p@example.com", "Cardiology"));
+        });
+        appointmentRepository = mock(AppointmentRepository.class);
+        AppConfigProperties config = new AppConfigProperties();
+        config.setQueueLeaseMillis(LEASE_MILLIS);
+        queueService = new QueueService(stringRedisTemplate, mock(UserRepository.class), appointmentRepository,
+                slotSnapshotCache, config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void promotionsClaimAndAckInOrder() {
+        for (long slotId = 1; slotId <= SLOTS; slotId++) {
+            queueService.joinQueue(slotId, user(1));
+            queueService.joinQueue(slotId, user(2));
+        }
+
+        long begin = System.nanoTime();
+        for (long slotId = 1; slotId <= SLOTS; slotId++) {
+            QueueService.Lease lease = queueService.claimNext(slotId).orElseThrow();
+            assertEquals(1L, lease.userId());
+            assertTrue(queueService.ack(lease));
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        log.info("{} promotions claimed and acked: {} per second", SLOTS, Math.round(SLOTS / seconds));
+
+        // the promoted user's memberships are gone, the runner-up is now at the head of every queue
+        assertEquals(0L, stringRedisTemplate.opsForHash().size("queue:user:1"));
+        assertEquals(1L, queueService.getPosition(1L, user(2)).getPosition());
+        assertEquals(0L, stringRedisTemplate.opsForZSet().zCard("queue:leases"));
+    }
+
+    @Test
+    void rollbackPutsClaimedUserBackInPlace() {
+        queueService.joinQueue(1L, user(1));
+        queueService.joinQueue(1L, user(2));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertEquals(1L, queueService.claimNext(1L).orElseThrow().userId());
+            assertEquals(1L, queueService.getQueueSize(1L));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1L, queueService.getPosition(1L, user(1)).getPosition());
+        assertEquals(2L, queueService.getQueueSize(1L));
+        assertEquals(0L, stringRedisTemplate.opsForZSet().zCard("queue:leases"));
+    }
+
+    @Test
+    void retriedCancellationPromotesTheSameUser() {
+        queueService.joinQueue(1L, user(1));
+        queueService.joinQueue(1L, user(2));
+
+        // first attempt loses an optimistic version check and rolls back, the retry commits
+        for (int status : new int[]{TransactionSynchronization.STATUS_ROLLED_BACK, TransactionSynchronization.STATUS_COMMITTED}) {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                assertEquals(1L, queueService.claimNext(1L).orElseThrow().userId());
+                TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(status));
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        assertEquals(1L, queueService.getPosition(1L, user(2)).getPosition());
+        assertEquals(1L, queueService.getQueueSize(1L));
+        assertFalse(stringRedisTemplate.opsForHash().hasKey("queue:user:1", "1"));
+    }
+
+    @Test
+    void expiredLeasesAreRecoveredFromTheDatabaseOutcome() throws Exception {
+        // slot 1: the promotion committed but the holder died before acking
+        // slot 2: the holder died before committing, so the slot still belongs to the canceller
+        queueService.joinQueue(1L, user(1));
+        queueService.joinQueue(2L, user(1));
+        queueService.joinQueue(2L, user(3));
+        Appointment promoted = new Appointment();
+        promoted.setUser(user(1));
+        Appointment canceller = new Appointment();
+        canceller.setUser(user(9));
+        when(appointmentRepository.findBySlotId(1L)).thenReturn(promoted);
+        when(appointmentRepository.findBySlotId(2L)).thenReturn(canceller);
+
+        List<QueueService.Lease> abandoned = new ArrayList<>();
+        abandoned.add(queueService.claimNext(1L).orElseThrow());
+        abandoned.add(queueService.claimNext(2L).orElseThrow());
+        assertEquals(0, queueService.recoverExpiredLeases(), "leases are not recovered before their deadline");
+
+        Thread.sleep(LEASE_MILLIS * 2);
+        long begin = System.nanoTime();
+        assertEquals(2, queueService.recoverExpiredLeases());
+        log.info("Recovered {} leases in {} us", abandoned.size(), (System.nanoTime() - begin) / 1_000);
+
+        assertFalse(stringRedisTemplate.opsForHash().hasKey("queue:user:1", "1"));
+        assertTrue(stringRedisTemplate.opsForHash().hasKey("queue:user:1", "2"));
+        assertEquals(1L, queueService.getPosition(2L, user(1)).getPosition());
+        assertEquals(2L, queueService.getPosition(2L, user(3)).getPosition());
+        assertEquals(0L, stringRedisTemplate.opsForZSet().zCard("queue:leases"));
+
+        // a late settle from the original holder finds nothing left to do
+        assertFalse(queueService.requeue(abandoned.get(0)));
+        assertEquals(0L, queueService.getQueueSize(1L));
+    }
+
+    private User user(long id) {
+        return User.builder().id(id).username("user" + id).build();
+    }
+}
@@ -0,0 +1,153 @@
+package com.smartappointment.performance;
+
+import com.smartappointment.entity.Slot;
+import com.smartappointment.entity.User;
+import com.smartappointment.repository.AppointmentRepository;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.UserRepository;
+import com.smartappointment.service.AppointmentService;
+import com.smartappointment.util.enumerations.SlotStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+@SpringBootTest
+@Testcontainers
+@TestPropertySource(properties = {
+        "spring.kafka.topic.name=test-topic",
+        "app.kafka.enabled=false"
+})
+class SlotClaimContentionTest {
+
+    private static final int CONTENDERS = 300;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+    }
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SlotRepository slotRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Test
+    void exactlyOneOfManyConcurrentBookingsWinsTheSlot() throws Exception {
+        contend("contention-doc");
+    }
+
+    // wall-clock bound on how long the losers wait, only meaningful on a quiet machine
+    @Test
+    @Tag("performance")
+    void losersAreRejectedQuickly() throws Exception {
+        List<Long> loserLatencies = contend("contention-latency-doc");
+
+        loserLatencies.sort(Long::compare);
+        Duration p50 = Duration.ofNanos(loserLatencies.get(loserLatencies.size() / 2));
+        Duration p99 = Duration.ofNanos(loserLatencies.get((int) Math.ceil(loserLatencies.size() * 0.99) - 1));
+        log.info("Slot contention: {} contenders, loser p50={}ms p99={}ms", CONTENDERS, p50.toMillis(), p99.toMillis());
+
+        assertTrue(p99.compareTo(Duration.ofSeconds(5)) < 0, "loser p99 too high: " + p99.toMillis() + "ms");
+    }
+
+    // races CONTENDERS bookings for one slot, checks a single winner and returns the losers' latencies
+    private List<Long> contend(String providerName) throws Exception {
+        User provider = userRepository.save(User.builder()
+                .username(providerName)
+                .email(providerName + "@clinic.com")
+                .password("pass")
+                .role("PROVIDER")
+                .specialization("Dentist")
+                .build());
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Slot slot = slotRepository.save(Slot.builder()
+                .provider(provider)
+                .description("Popular slot")
+                .startTime(start)
+                .endTime(start.plusMinutes(30))
+                .status(SlotStatus.AVAILABLE)
+                .build());
+
+        List<User> users = userRepository.saveAll(IntStream.range(0, CONTENDERS)
+                .mapToObj(i -> User.builder()
+                        .username(providerName + "-contender" + i)
+                        .email(providerName + "-contender" + i + "@example.com")
+                        .password("pass")
+                        .role("USER")
+                        .build())
+                .toList());
+
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<Attempt>> futures = new ArrayList<>();
+        for (User user : users) {
+            futures.add(pool.submit(() -> {
+                startGate.await();
+                long begin = System.nanoTime();
+                try {
+                    appointmentService.createAppointment(slot.getId(), user.getUsername());
+                    return new Attempt(true, System.nanoTime() - begin);
+                } catch (IllegalStateException e) {
+                    return new Attempt(false, System.nanoTime() - begin);
+                }
+            }));
+        }
+        startGate.countDown();
+
+        List<Long> loserLatencies = new ArrayList<>();
+        int winners = 0;
+        for (Future<Attempt> future : futures) {
+            Attempt attempt = future.get(60, TimeUnit.SECONDS);
+            if (attempt.won()) {
+                winners++;
+            } else {
+                loserLatencies.add(attempt.nanos());
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(1, winners);
+        assertEquals(CONTENDERS - 1, loserLatencies.size());
+        assertEquals(SlotStatus.BOOKED, slotRepository.findById(slot.getId()).orElseThrow().getStatus());
+        assertNotNull(appointmentRepository.findBySlotId(slot.getId()));
+        return loserLatencies;
+    }
+
+    private record Attempt(boolean won, long nanos) {
+    }
+}
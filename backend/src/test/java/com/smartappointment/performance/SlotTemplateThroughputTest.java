@@ -0,0 +1,128 @@
+package com.smartappointment.performance;
+
+import com.smartappointment.dto.SlotRequestDto;
+import com.smartappointment.dto.SlotTemplateRequestDto;
+import com.smartappointment.dto.SlotTemplateResponseDto;
+import com.smartappointment.entity.User;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.UserRepository;
+import com.smartappointment.service.SlotService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A 1,000-slot template against the same slots created one addSlot call at a time
+@Slf4j
+@Tag("performance")
+@SpringBootTest
+@Testcontainers
+@TestPropertySource(properties = {
+        "spring.kafka.topic.name=test-topic",
+        "app.kafka.enabled=false"
+})
+class SlotTemplateThroughputTest {
+
+    private static final int SINGLE_INSERTS = 200;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7").withExposedPorts(6379);
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("spring.data.redis.host", redis::getHost);
+        registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379));
+    }
+
+    @Autowired
+    private SlotService slotService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SlotRepository slotRepository;
+
+    @Test
+    void templateCreatesThousandSlotsInOneBatch() {
+        User templated = provider("template-doc");
+        User oneByOne = provider("single-doc");
+
+        // Monday to Friday 08:00-18:00 in 30 minute slots for 10 weeks: 1,000 slots
+        SlotTemplateRequestDto template = SlotTemplateRequestDto.builder()
+                .description("Clinic hours")
+                .daysOfWeek(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY))
+                .dayStart(LocalTime.of(8, 0))
+                .dayEnd(LocalTime.of(18, 0))
+                .slotMinutes(30)
+                .startDate(LocalDate.now().plusDays(1))
+                .weeks(10)
+                .build();
+        // warm up the interval index and connection pool on an unrelated day
+        slotService.addSlot(request(LocalDateTime.now().plusYears(2)), templated.getUsername());
+
+        long templateStart = System.nanoTime();
+        SlotTemplateResponseDto response = slotService.addSlotsFromTemplate(template, templated.getUsername());
+        long templateMillis = (System.nanoTime() - templateStart) / 1_000_000;
+        assertEquals(1_000, response.getCreated());
+
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withHour(8).withMinute(0).withSecond(0).withNano(0);
+        long singleStart = System.nanoTime();
+        for (int i = 0; i < SINGLE_INSERTS; i++) {
+            slotService.addSlot(request(base.plusMinutes(30L * i)), oneByOne.getUsername());
+        }
+        double singleMillisPerSlot = (System.nanoTime() - singleStart) / 1e6 / SINGLE_INSERTS;
+
+        log.info("Template of {} slots: {} ms; addSlot one at a time: {} ms/slot, {} ms projected for {} slots",
+                response.getCreated(), templateMillis, singleMillisPerSlot,
+                Math.round(singleMillisPerSlot * response.getCreated()), response.getCreated());
+        assertEquals(1_001, slotRepository.findByProvider(templated).size());
+        assertTrue(templateMillis < singleMillisPerSlot * response.getCreated() / 5,
+                "template should be well over 5x faster than single inserts");
+    }
+
+    private User provider(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@clinic.com")
+                .password("pass")
+                .role("PROVIDER")
+                .specialization("Cardiology")
+                .build());
+    }
+
+    private SlotRequestDto request(LocalDateTime start) {
+        return SlotRequestDto.builder()
+                .description("Single slot")
+                .status("AVAILABLE")
+                .startTime(start)
+                .endTime(start.plusMinutes(30))
+                .build();
+    }
+}
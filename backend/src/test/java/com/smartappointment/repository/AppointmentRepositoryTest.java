@@ -90,4 +90,49 @@ class AppointmentRepositoryTest {
         assertEquals(1, appointments.size());
         assertEquals("Consultation", appointments.get(0).getSlot().getDescription());
     }
+
+    @Test
+    void testDailyCountAndOverlapQueries() {
+        User user = userRepository.save(User.builder()
+                .username("jane")
+                .email("jane@example.com")
+                .password("secret")
+                .role("USER")
+                .build());
+
+        User provider = userRepository.save(User.builder()
+                .username("dentist")
+                .email("dentist@clinic.com")
+                .password("pass")
+                .role("PROVIDER")
+                .build());
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Slot slot = slotRepository.save(Slot.builder()
+                .provider(provider)
+                .description("Checkup")
+                .startTime(start)
+                .endTime(start.plusMinutes(30))
+                .status(SlotStatus.BOOKED)
+                .build());
+
+        appointmentRepository.save(Appointment.builder()
+                .user(user)
+                .slot(slot)
+                .status(AppointmentStatus.BOOKED)
+                .build());
+
+        LocalDateTime startOfDay = start.toLocalDate().atStartOfDay();
+        assertEquals(1, appointmentRepository.countByUserIdAndSlotStartTimeAfterAndSlotStartTimeBefore(
+                user.getId(), startOfDay, startOfDay.plusDays(1)));
+        assertEquals(0, appointmentRepository.countByUserIdAndSlotStartTimeAfterAndSlotStartTimeBefore(
+                user.getId(), startOfDay.plusDays(1), startOfDay.plusDays(2)));
+
+        assertFalse(appointmentRepository.existsByUserIdAndStatusAndSlotStartTimeBeforeAndSlotEndTimeAfter(
+                user.getId(), AppointmentStatus.BOOKED, start.plusMinutes(60), start.plusMinutes(30)));
+        assertTrue(appointmentRepository.existsByUserIdAndStatusAndSlotStartTimeBeforeAndSlotEndTimeAfter(
+                user.getId(), AppointmentStatus.BOOKED, start.plusMinutes(45), start.plusMinutes(15)));
+        assertFalse(appointmentRepository.existsByUserIdAndStatusAndSlotStartTimeBeforeAndSlotEndTimeAfter(
+                user.getId(), AppointmentStatus.EXPIRED, start.plusMinutes(45), start.plusMinutes(15)));
+    }
 }
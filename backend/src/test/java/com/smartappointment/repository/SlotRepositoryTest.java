@@ -2,11 +2,14 @@ package com.smartappointment.repository;
 
 import com.smartappointment.entity.Slot;
 import com.smartappointment.entity.User;
+import com.smartappointment.repository.projection.SlotRow;
 import com.smartappointment.util.enumerations.SlotStatus;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
@@ -14,7 +17,10 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -72,4 +78,79 @@ class SlotRepositoryTest {
         assertEquals(1, slots.size());
         assertEquals("Consultation", slots.get(0).getDescription());
     }
+
+    @Test
+    void testKeysetSearchWalksPagesInOrder() {
+        User provider = userRepository.save(User.builder()
+                .username("pager")
+                .email("pager@clinic.com")
+                .password("pass")
+                .role("PROVIDER")
+                .specialization("Dermatology")
+                .build());
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        for (int i = 0; i < 5; i++) {
+            // two slots per start time, so the id tie-breaker is exercised
+            slotRepository.save(Slot.builder()
+                    .provider(provider)
+                    .description("Slot " + i)
+                    .startTime(start.plusHours(i / 2))
+                    .endTime(start.plusHours(i / 2).plusMinutes(30))
+                    .status(i == 4 ? SlotStatus.EXPIRED : SlotStatus.AVAILABLE)
+                    .build());
+        }
+
+        Specification<Slot> filter = SlotSpecifications.search(List.of(SlotStatus.AVAILABLE), provider.getId(),
+                "dermatology", start.minusMinutes(1), null);
+        Sort order = Sort.by("startTime", "id");
+
+        List<Slot> first = slotRepository.findBy(filter, q -> q.sortBy(order).limit(3).all());
+        Slot last = first.get(2);
+        List<Slot> second = slotRepository.findBy(filter.and(SlotSpecifications.after(last.getStartTime(), last.getId())),
+                q -> q.sortBy(order).limit(3).all());
+
+        assertEquals(3, first.size());
+        assertEquals(1, second.size());
+        assertTrue(second.get(0).getId() > last.getId());
+        assertEquals("Slot 3", second.get(0).getDescription());
+
+        // one row per page cuts through every tie, and each slot still comes back exactly once, in order
+        List<String> walked = new ArrayList<>();
+        Specification<Slot> page = filter;
+        List<Slot> rows;
+        while (!(rows = slotRepository.findBy(page, q -> q.sortBy(order).limit(1).all())).isEmpty()) {
+            Slot row = rows.get(0);
+            walked.add(row.getDescription());
+            page = filter.and(SlotSpecifications.after(row.getStartTime(), row.getId()));
+        }
+        assertEquals(List.of("Slot 0", "Slot 1", "Slot 2", "Slot 3"), walked);
+    }
+
+    @Test
+    void testFindRowsByIdInReturnsOnlyRequestedSlots() {
+        User provider = userRepository.save(User.builder()
+                .username("batch")
+                .email("batch@clinic.com")
+                .password("pass")
+                .role("PROVIDER")
+                .specialization("Neurology")
+                .build());
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(slotRepository.save(Slot.builder()
+                    .provider(provider)
+                    .description("Slot " + i)
+                    .startTime(start.plusHours(i))
+                    .endTime(start.plusHours(i).plusMinutes(30))
+                    .status(SlotStatus.AVAILABLE)
+                    .build()).getId());
+        }
+
+        List<SlotRow> rows = slotRepository.findRowsByIdIn(List.of(ids.get(0), ids.get(2), -1L));
+
+        assertEquals(2, rows.size());
+        assertTrue(rows.stream().allMatch(row -> "Neurology".equals(row.providerSpecialization())));
+        assertEquals(Set.of(ids.get(0), ids.get(2)), rows.stream().map(SlotRow::id).collect(Collectors.toSet()));
+    }
 }
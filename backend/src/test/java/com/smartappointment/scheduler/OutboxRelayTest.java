@@ -0,0 +1,96 @@
+package com.smartappointment.scheduler;
+
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.entity.OutboxEvent;
+import com.smartappointment.notification.kafka.producer.KafkaProducerService;
+import com.smartappointment.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+    @Mock
+    private AppConfigProperties config;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay outboxRelay;
+    private List<OutboxEvent> batch;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        outboxRelay = new OutboxRelay(outboxEventRepository, kafkaProducerService, config, meterRegistry);
+        batch = List.of(
+                OutboxEvent.builder().id(1L).aggregateType("Appointment").aggregateId(200L).payload("booked").build(),
+                OutboxEvent.builder().id(2L).aggregateType("Appointment").aggregateId(201L).payload("cancelled").build());
+        when(config.getOutboxBatchSize()).thenReturn(100);
+    }
+
+    @Test
+    void testRelayDeletesEventsOnceAcked() {
+        when(config.getOutboxPublishTimeoutMillis()).thenReturn(1000L);
+        when(outboxEventRepository.claimNextBatch(eq(100), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(batch);
+        doReturn(CompletableFuture.completedFuture(null)).when(kafkaProducerService).publish(anyString(), anyString());
+
+        outboxRelay.relay();
+
+        verify(kafkaProducerService).publish("Appointment:200", "booked");
+        verify(kafkaProducerService).publish("Appointment:201", "cancelled");
+        verify(outboxEventRepository).deleteAllInBatch(batch);
+        assertEquals(2, meterRegistry.counter("outbox.events", "result", "published").count());
+    }
+
+    @Test
+    void testRelayKeepsEventsWhenBrokerFails() {
+        when(config.getOutboxPublishTimeoutMillis()).thenReturn(1000L);
+        when(outboxEventRepository.claimNextBatch(eq(100), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(batch);
+        doReturn(CompletableFuture.completedFuture(null))
+                .doReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .when(kafkaProducerService).publish(anyString(), anyString());
+
+        assertThrows(IllegalStateException.class, () -> outboxRelay.relay());
+
+        verify(outboxEventRepository, never()).deleteAllInBatch(any());
+        verify(outboxEventRepository).releaseClaims(List.of(1L, 2L));
+        assertEquals(2, meterRegistry.counter("outbox.events", "result", "failed").count());
+    }
+
+    @Test
+    void testRelaySkipsEmptyOutbox() {
+        when(outboxEventRepository.claimNextBatch(eq(100), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(List.of());
+
+        outboxRelay.relay();
+
+        verifyNoInteractions(kafkaProducerService);
+    }
+
+    @Test
+    void testClaimOutlastsPublishTimeout() {
+        when(config.getOutboxPublishTimeoutMillis()).thenReturn(1000L);
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> claimedUntil = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(outboxEventRepository.claimNextBatch(eq(100), now.capture(), claimedUntil.capture())).thenReturn(List.of());
+
+        outboxRelay.relay();
+
+        assertEquals(Duration.ofSeconds(2), Duration.between(now.getValue(), claimedUntil.getValue()));
+    }
+}
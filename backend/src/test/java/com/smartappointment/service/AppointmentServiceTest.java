@@ -3,13 +3,20 @@ package com.smartappointment.service;
 import com.smartappointment.config.AppConfigProperties;
 import com.smartappointment.dto.AppointmentResponseDto;
 import com.smartappointment.entity.*;
+import com.smartappointment.event.SlotChangedEvent;
+import com.smartappointment.exception.BookingRejectedException;
 import com.smartappointment.notification.NotificationService;
-import com.smartappointment.notification.kafka.producer.KafkaProducerService;
 import com.smartappointment.repository.*;
+import com.smartappointment.repository.projection.AppointmentRow;
 import com.smartappointment.util.enumerations.AppointmentStatus;
 import com.smartappointment.util.enumerations.SlotStatus;
+import com.smartappointment.util.metrics.BookingMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.OptimisticLockException;
 import org.apache.kafka.common.errors.ResourceNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -43,7 +50,7 @@ class AppointmentServiceTest {
     @Mock
     private NotificationService notificationService;
     @Mock
-    private KafkaProducerService kafkaProducerService;
+    private OutboxService outboxService;
     @Mock
     private MeterRegistry meterRegistry;
     @Mock
@@ -51,7 +58,15 @@ class AppointmentServiceTest {
     @Mock
     private QueueService queueService;
     @Mock
+    private FlashBookingService flashBookingService;
+    @Mock
+    private org.springframework.context.ApplicationEventPublisher eventPublisher;
+    @Mock
     private io.micrometer.core.instrument.Counter counter;
+    @Mock
+    private EntityManager entityManager;
+    @Spy
+    private BookingMetrics bookingMetrics = new BookingMetrics(new SimpleMeterRegistry());
 
 
     private User user;
@@ -82,9 +97,9 @@ class AppointmentServiceTest {
 
     @Test
     void testCreateAppointmentSuccess() {
+        when(slotRepository.transitionStatus(100L, SlotStatus.AVAILABLE, SlotStatus.BOOKED)).thenReturn(1);
         when(userRepository.findByUsername("user1")).thenReturn(Optional.of(user));
         when(slotRepository.findById(100L)).thenReturn(Optional.of(slot));
-        when(appointmentRepository.findByUser(user)).thenReturn(Collections.emptyList());
         when(config.getMaxBookingsPerDay()).thenReturn(5);
         when(appointmentRepository.save(any())).thenReturn(appointment);
         when(meterRegistry.counter(eq("appointments.booked.count"))).thenReturn(counter);
@@ -100,11 +115,149 @@ class AppointmentServiceTest {
 
     @Test
     void testCreateAppointment_SlotNotAvailable() {
-        slot.setStatus(SlotStatus.BOOKED);
+        when(slotRepository.transitionStatus(100L, SlotStatus.AVAILABLE, SlotStatus.BOOKED)).thenReturn(0);
+        when(slotRepository.existsById(100L)).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> appointmentService.createAppointment(100L, "user1"));
+        verify(userRepository, never()).findByUsername(anyString());
+        verify(slotRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void testCreateAppointment_DailyLimitReached() {
+        when(slotRepository.transitionStatus(100L, SlotStatus.AVAILABLE, SlotStatus.BOOKED)).thenReturn(1);
         when(userRepository.findByUsername("user1")).thenReturn(Optional.of(user));
         when(slotRepository.findById(100L)).thenReturn(Optional.of(slot));
+        when(config.getMaxBookingsPerDay()).thenReturn(5);
+        when(appointmentRepository.countByUserIdAndSlotStartTimeAfterAndSlotStartTimeBefore(eq(1L), any(), any())).thenReturn(5L);
+
+        BookingRejectedException ex = assertThrows(BookingRejectedException.class, () -> appointmentService.createAppointment(100L, "user1"));
+        assertEquals(BookingRejectedException.CAP_EXCEEDED, ex.getOutcome());
+        verify(appointmentRepository, never()).save(any());
+    }
+
+    @Test
+    void testCreateAppointment_OverlappingAppointment() {
+        when(slotRepository.transitionStatus(100L, SlotStatus.AVAILABLE, SlotStatus.BOOKED)).thenReturn(1);
+        when(userRepository.findByUsername("user1")).thenReturn(Optional.of(user));
+        when(slotRepository.findById(100L)).thenReturn(Optional.of(slot));
+        when(config.getMaxBookingsPerDay()).thenReturn(5);
+        when(appointmentRepository.existsByUserIdAndStatusAndSlotStartTimeBeforeAndSlotEndTimeAfter(
+                1L, AppointmentStatus.BOOKED, slot.getEndTime(), slot.getStartTime())).thenReturn(true);
 
         assertThrows(IllegalStateException.class, () -> appointmentService.createAppointment(100L, "user1"));
+        verify(appointmentRepository, never()).findByUser(any());
+        verify(appointmentRepository, never()).save(any());
+    }
+
+    @Test
+    void testConfirmHoldBooksHeldSlot() {
+        when(userRepository.findByUsername("user1")).thenReturn(Optional.of(user));
+        when(slotRepository.confirmHold(eq(100L), eq(1L), any(LocalDateTime.class))).thenReturn(1);
+        when(slotRepository.findById(100L)).thenReturn(Optional.of(slot));
+        when(config.getMaxBookingsPerDay()).thenReturn(5);
+        when(appointmentRepository.save(any())).thenReturn(appointment);
+        when(meterRegistry.counter(eq("appointments.booked.count"))).thenReturn(counter);
+
+        AppointmentResponseDto response = appointmentService.confirmHold(100L, "user1");
+
+        assertEquals(200L, response.getAppointmentId());
+        verify(slotRepository, never()).transitionStatus(any(), any(), any());
+    }
+
+    @Test
+    void testConfirmHoldRejectsMissingOrExpiredHold() {
+        when(userRepository.findByUsername("user1")).thenReturn(Optional.of(user));
+        when(slotRepository.confirmHold(eq(100L), eq(1L), any(LocalDateTime.class))).thenReturn(0);
+        when(slotRepository.existsById(100L)).thenReturn(true);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> appointmentService.confirmHold(100L, "user1"));
+        assertTrue(ex.getMessage().contains("hold has expired"));
+        verify(appointmentRepository, never()).save(any());
+    }
+
+    @Test
+    void testCreateAppointmentsBooksAllSlotsWithOneNotification() {
+        Slot second = Slot.builder()
+                .id(101L)
+                .status(SlotStatus.AVAILABLE)
+                .startTime(slot.getStartTime().plusDays(7))
+                .endTime(slot.getEndTime().plusDays(7))
+                .provider(provider)
+                .description("Follow-up")
+                .build();
+        when(slotRepository.transitionStatus(anyLong(), eq(SlotStatus.AVAILABLE), eq(SlotStatus.BOOKED))).thenReturn(1);
+        when(userRepository.findByUsername("user1")).thenReturn(Optional.of(user));
+        when(slotRepository.findAllById(List.of(100L, 101L))).thenReturn(List.of(second, slot));
+        when(appointmentRepository.findByUserIdAndSlotStartTimeBeforeAndSlotEndTimeAfter(eq(1L), any(), any())).thenReturn(List.of());
+        when(config.getMaxBookingsPerDay()).thenReturn(5);
+        when(appointmentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(meterRegistry.counter(eq("appointments.booked.count"))).thenReturn(counter);
+
+        List<AppointmentResponseDto> response = appointmentService.createAppointments(List.of(101L, 100L, 101L), "user1");
+
+        assertEquals(2, response.size());
+        assertEquals(100L, response.get(0).getSlotId());
+        assertEquals(101L, response.get(1).getSlotId());
+        verify(slotRepository, times(2)).transitionStatus(anyLong(), eq(SlotStatus.AVAILABLE), eq(SlotStatus.BOOKED));
+        verify(appointmentRepository, times(1)).findByUserIdAndSlotStartTimeBeforeAndSlotEndTimeAfter(eq(1L), any(), any());
+        verify(notificationService, times(1)).sendNotification(anyString(), contains("2 appointments"));
+        verify(outboxService, times(1)).record(eq("User"), eq(1L), eq("APPOINTMENTS_BOOKED"), anyString());
+        verify(counter).increment(2);
+    }
+
+    @Test
+    void testCreateAppointmentsRejectsWhenAnySlotIsTaken() {
+        when(slotRepository.transitionStatus(100L, SlotStatus.AVAILABLE, SlotStatus.BOOKED)).thenReturn(1);
+        when(slotRepository.transitionStatus(101L, SlotStatus.AVAILABLE, SlotStatus.BOOKED)).thenReturn(0);
+        when(slotRepository.existsById(101L)).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> appointmentService.createAppointments(List.of(100L, 101L), "user1"));
+        verify(appointmentRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testCreateAppointmentsRejectsCombinedDailyCap() {
+        Slot second = Slot.builder()
+                .id(101L)
+                .status(SlotStatus.AVAILABLE)
+                .startTime(slot.getEndTime())
+                .endTime(slot.getEndTime().plusMinutes(30))
+                .provider(provider)
+                .build();
+        when(slotRepository.transitionStatus(anyLong(), eq(SlotStatus.AVAILABLE), eq(SlotStatus.BOOKED))).thenReturn(1);
+        when(userRepository.findByUsername("user1")).thenReturn(Optional.of(user));
+        when(slotRepository.findAllById(List.of(100L, 101L))).thenReturn(List.of(slot, second));
+        when(appointmentRepository.findByUserIdAndSlotStartTimeBeforeAndSlotEndTimeAfter(eq(1L), any(), any())).thenReturn(List.of());
+        when(config.getMaxBookingsPerDay()).thenReturn(1);
+
+        assertThrows(IllegalStateException.class, () -> appointmentService.createAppointments(List.of(100L, 101L), "user1"));
+        verify(appointmentRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testCreateAppointmentsRejectsOverlappingSelection() {
+        Slot overlapping = Slot.builder()
+                .id(101L)
+                .status(SlotStatus.AVAILABLE)
+                .startTime(slot.getStartTime().plusMinutes(15))
+                .endTime(slot.getEndTime().plusMinutes(15))
+                .provider(provider)
+                .build();
+        when(slotRepository.transitionStatus(anyLong(), eq(SlotStatus.AVAILABLE), eq(SlotStatus.BOOKED))).thenReturn(1);
+        when(userRepository.findByUsername("user1")).thenReturn(Optional.of(user));
+        when(slotRepository.findAllById(List.of(100L, 101L))).thenReturn(List.of(slot, overlapping));
+
+        assertThrows(IllegalStateException.class, () -> appointmentService.createAppointments(List.of(100L, 101L), "user1"));
+        verify(appointmentRepository, never()).findByUserIdAndSlotStartTimeBeforeAndSlotEndTimeAfter(anyLong(), any(), any());
+    }
+
+    @Test
+    void testCreateAppointment_SlotNotFound() {
+        when(slotRepository.transitionStatus(100L, SlotStatus.AVAILABLE, SlotStatus.BOOKED)).thenReturn(0);
+        when(slotRepository.existsById(100L)).thenReturn(false);
+
+        assertThrows(EntityNotFoundException.class, () -> appointmentService.createAppointment(100L, "user1"));
     }
 
     @Test
@@ -119,12 +272,87 @@ class AppointmentServiceTest {
         verify(slotRepository).save(slot);
         verify(cancellationLogRepository).save(any(CancellationLog.class));
         verify(appointmentRepository).delete(appointment);
-        verify(queueService).dequeueNextAndBook(100L);
+        verify(queueService).claimNext(100L);
+        assertEquals(SlotStatus.AVAILABLE, slot.getStatus());
+        verify(eventPublisher).publishEvent(new SlotChangedEvent(100L, 2L, "provider1"));
         verify(notificationService).sendNotification(eq("user1@mail.com"), contains("cancelled successfully"));
+        verify(outboxService).record(eq("Appointment"), eq(200L), eq("APPOINTMENT_CANCELLED"), contains("cancelled successfully"));
 
         // Optional verify counter increment
         verify(counter).increment();
     }
+    @Test
+    void testDeleteAppointmentPromotesFirstEligibleQueuedUser() {
+        slot.setStatus(SlotStatus.BOOKED);
+        User capped = User.builder().id(3L).username("capped").email("capped@mail.com").build();
+        User next = User.builder().id(4L).username("next").email("next@mail.com").build();
+        when(appointmentRepository.findById(200L)).thenReturn(Optional.of(appointment));
+        when(queueService.claimNext(100L)).thenReturn(
+                Optional.of(new QueueService.Lease(100L, 3L, "10")),
+                Optional.of(new QueueService.Lease(100L, 4L, "20")));
+        when(userRepository.findById(3L)).thenReturn(Optional.of(capped));
+        when(userRepository.findById(4L)).thenReturn(Optional.of(next));
+        when(slotRepository.findById(100L)).thenReturn(Optional.of(slot));
+        when(config.getMaxBookingsPerDay()).thenReturn(5);
+        when(appointmentRepository.countByUserIdAndSlotStartTimeAfterAndSlotStartTimeBefore(eq(3L), any(), any())).thenReturn(5L);
+        when(appointmentRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(meterRegistry.counter(anyString())).thenReturn(counter);
+
+        appointmentService.deleteAppointment(200L, "user1");
+
+        // the capped user is skipped, the next one is booked through the regular checks and the slot never reopens
+        ArgumentCaptor<Appointment> saved = ArgumentCaptor.forClass(Appointment.class);
+        verify(appointmentRepository).save(saved.capture());
+        assertEquals(4L, saved.getValue().getUser().getId());
+        assertEquals(SlotStatus.BOOKED, slot.getStatus());
+        verify(slotRepository, never()).save(any(Slot.class));
+        verify(appointmentRepository).existsByUserIdAndStatusAndSlotStartTimeBeforeAndSlotEndTimeAfter(
+                eq(4L), eq(AppointmentStatus.BOOKED), any(), any());
+        verify(notificationService).sendNotification(eq("next@mail.com"), contains("booked successfully"));
+        verify(queueService, times(2)).claimNext(100L);
+        // the skipped entry is settled at once, the promoted one waits for the commit
+        verify(queueService).ack(new QueueService.Lease(100L, 3L, "10"));
+        verify(queueService, never()).ack(new QueueService.Lease(100L, 4L, "20"));
+    }
+
+    @Test
+    void testDeleteAppointmentReleasesSlotWhenNoQueuedUserQualifies() {
+        slot.setStatus(SlotStatus.BOOKED);
+        when(appointmentRepository.findById(200L)).thenReturn(Optional.of(appointment));
+        when(queueService.claimNext(100L)).thenReturn(Optional.of(new QueueService.Lease(100L, 3L, "10")), Optional.empty());
+        when(userRepository.findById(3L)).thenReturn(Optional.empty());
+        when(meterRegistry.counter(eq("appointments.cancelled.count"))).thenReturn(counter);
+
+        appointmentService.deleteAppointment(200L, "user1");
+
+        assertEquals(SlotStatus.AVAILABLE, slot.getStatus());
+        verify(slotRepository).save(slot);
+        verify(appointmentRepository, never()).save(any());
+        verify(queueService).ack(new QueueService.Lease(100L, 3L, "10"));
+    }
+
+    @Test
+    void testDeleteAppointmentChecksSlotVersionBeforeClaimingQueue() {
+        when(appointmentRepository.findById(200L)).thenReturn(Optional.of(appointment));
+        when(meterRegistry.counter(eq("appointments.cancelled.count"))).thenReturn(counter);
+
+        appointmentService.deleteAppointment(200L, "user1");
+
+        InOrder order = inOrder(entityManager, queueService);
+        order.verify(entityManager).lock(slot, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+        order.verify(queueService).claimNext(100L);
+    }
+
+    @Test
+    void testDeleteAppointmentVersionConflictLeavesQueueUntouched() {
+        when(appointmentRepository.findById(200L)).thenReturn(Optional.of(appointment));
+        doThrow(new OptimisticLockException("slot changed")).when(entityManager).lock(slot, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+
+        // the retry executor re-runs the whole cancellation, which then claims the same queued user
+        assertThrows(OptimisticLockException.class, () -> appointmentService.deleteAppointment(200L, "user1"));
+        verifyNoInteractions(queueService);
+    }
+
     @Test
     void testDeleteAppointment_Unauthorized() {
         when(appointmentRepository.findById(200L)).thenReturn(Optional.of(appointment));
@@ -159,24 +387,31 @@ class AppointmentServiceTest {
         assertThrows(ResponseStatusException.class, () -> appointmentService.completeAppointment(200L, "provider1"));
     }
 
+    private AppointmentRow appointmentRow() {
+        return new AppointmentRow(200L, AppointmentStatus.BOOKED, 100L, "Consult", slot.getStartTime(), slot.getEndTime(),
+                2L, "provider1", "p@mail.com", "user1", "user1@mail.com");
+    }
+
     @Test
     void testGetUserAppointments() {
-        when(appointmentRepository.findByUserUsername("user1")).thenReturn(List.of(appointment));
+        when(appointmentRepository.findRowsByUserUsername("user1")).thenReturn(List.of(appointmentRow()));
 
         List<AppointmentResponseDto> result = appointmentService.getUserAppointments("user1");
 
         assertEquals(1, result.size());
         assertEquals("Consult", result.get(0).getDescription());
+        assertEquals("BOOKED", result.get(0).getStatus());
     }
 
     @Test
     void testGetProviderAppointments() {
-        when(appointmentRepository.findBySlotProviderUsername("provider1")).thenReturn(List.of(appointment));
+        when(appointmentRepository.findRowsByProviderUsername("provider1")).thenReturn(List.of(appointmentRow()));
 
         List<AppointmentResponseDto> result = appointmentService.getProviderAppointments("provider1");
 
         assertEquals(1, result.size());
         assertEquals("Consult", result.get(0).getDescription());
+        assertEquals("BOOKED", result.get(0).getStatus());
     }
 
     @Test
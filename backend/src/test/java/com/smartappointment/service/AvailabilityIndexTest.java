@@ -0,0 +1,132 @@
+package com.smartappointment.service;
+
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.projection.SlotRow;
+import com.smartappointment.util.enumerations.SlotStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityIndexTest {
+
+    @Mock
+    private SlotRepository slotRepository;
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private AvailabilityIndex availabilityIndex;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setup() {
+        availabilityIndex = new AvailabilityIndex(slotRepository, new SimpleMeterRegistry(), listenerContainer);
+        base = LocalDateTime.now().plusDays(1).withNano(0);
+    }
+
+    private SlotRow slot(long id, int hoursFromBase, String specialization, SlotStatus status) {
+        LocalDateTime start = base.plusHours(hoursFromBase);
+        return new SlotRow(id, "Consult", start, start.plusMinutes(30), status, 2L, "provider1", "p@example.com", specialization);
+    }
+
+    @Test
+    void testFindNextReturnsEarliestForSpecialization() {
+        availabilityIndex.put(slot(1L, 5, "Cardiology", SlotStatus.AVAILABLE));
+        availabilityIndex.put(slot(2L, 2, "Dermatology", SlotStatus.AVAILABLE));
+        availabilityIndex.put(slot(3L, 3, "Cardiology", SlotStatus.AVAILABLE));
+
+        assertEquals(3L, availabilityIndex.findNext("cardiology", base, null).orElseThrow().id());
+        assertEquals(2L, availabilityIndex.findNext(null, base, null).orElseThrow().id());
+        assertTrue(availabilityIndex.findNext("Cardiology", base, base.plusHours(3)).isEmpty());
+        assertTrue(availabilityIndex.findNext("Neurology", base, null).isEmpty());
+    }
+
+    @Test
+    void testFindRangeIsOrderedAndLimited() {
+        availabilityIndex.put(slot(1L, 1, "Cardiology", SlotStatus.AVAILABLE));
+        availabilityIndex.put(slot(2L, 1, "Cardiology", SlotStatus.AVAILABLE));
+        availabilityIndex.put(slot(3L, 4, "Cardiology", SlotStatus.AVAILABLE));
+        availabilityIndex.put(slot(4L, 9, "Cardiology", SlotStatus.AVAILABLE));
+
+        List<SlotRow> range = availabilityIndex.findRange("Cardiology", base, base.plusHours(9), 10);
+        assertEquals(List.of(1L, 2L, 3L), range.stream().map(SlotRow::id).toList());
+        assertEquals(1, availabilityIndex.findRange("Cardiology", base, null, 1).size());
+    }
+
+    @Test
+    void testOnlyOpenAvailableSlotsAreIndexed() {
+        availabilityIndex.put(slot(1L, 1, "Cardiology", SlotStatus.BOOKED));
+        availabilityIndex.put(new SlotRow(2L, "Past", base.minusDays(3), base.minusDays(3).plusMinutes(30),
+                SlotStatus.AVAILABLE, 2L, "provider1", "p@example.com", "Cardiology"));
+
+        assertEquals(0, availabilityIndex.size());
+    }
+
+    @Test
+    void testRefreshMovesAndDropsSlots() {
+        availabilityIndex.put(slot(1L, 1, "Cardiology", SlotStatus.AVAILABLE));
+        when(slotRepository.findRowById(1L))
+                .thenReturn(Optional.of(slot(1L, 6, "Cardiology", SlotStatus.AVAILABLE)))
+                .thenReturn(Optional.of(slot(1L, 6, "Cardiology", SlotStatus.BOOKED)));
+
+        availabilityIndex.refresh(1L);
+        assertEquals(base.plusHours(6), availabilityIndex.findNext("Cardiology", base, null).orElseThrow().startTime());
+        assertEquals(1, availabilityIndex.findRange(null, base, null, 10).size());
+
+        availabilityIndex.refresh(1L);
+        assertTrue(availabilityIndex.findNext("Cardiology", base, null).isEmpty());
+        assertTrue(availabilityIndex.findNext(null, base, null).isEmpty());
+    }
+
+    @Test
+    void testInvalidationMessageRefreshesSlot() {
+        when(slotRepository.findRowById(7L)).thenReturn(Optional.of(slot(7L, 1, "Cardiology", SlotStatus.AVAILABLE)));
+
+        availabilityIndex.onMessage(new DefaultMessage(
+                SlotSnapshotCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "7".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertEquals(7L, availabilityIndex.findNext("Cardiology", base, null).orElseThrow().id());
+    }
+
+    @Test
+    void testRebuildReplacesIndex() {
+        availabilityIndex.put(slot(1L, 1, "Cardiology", SlotStatus.AVAILABLE));
+        when(slotRepository.streamAvailableRows(any(LocalDateTime.class)))
+                .thenReturn(Stream.of(slot(2L, 2, "Dermatology", SlotStatus.AVAILABLE)));
+
+        availabilityIndex.rebuild();
+
+        assertEquals(1, availabilityIndex.size());
+        assertEquals(2L, availabilityIndex.findNext(null, base, null).orElseThrow().id());
+    }
+
+    @Test
+    void testBatchInvalidationLoadsSlotsInOneQuery() {
+        availabilityIndex.put(slot(9L, 1, "Cardiology", SlotStatus.AVAILABLE));
+        when(slotRepository.findRowsByIdIn(List.of(7L, 8L, 9L))).thenReturn(List.of(
+                slot(7L, 2, "Cardiology", SlotStatus.AVAILABLE), slot(8L, 3, "Cardiology", SlotStatus.AVAILABLE)));
+
+        availabilityIndex.onMessage(new DefaultMessage(
+                SlotSnapshotCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                SlotInvalidation.batch(2L, List.of(7L, 8L, 9L)).getBytes(StandardCharsets.UTF_8)), null);
+
+        // 9 was not returned, so it is gone
+        assertEquals(List.of(7L, 8L), availabilityIndex.findRange("Cardiology", base, null, 10).stream().map(SlotRow::id).toList());
+        verify(slotRepository, never()).findRowById(anyLong());
+    }
+}
@@ -0,0 +1,107 @@
+package com.smartappointment.service;
+
+import com.smartappointment.event.AppointmentChangedEvent;
+import com.smartappointment.event.SlotChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DataVersionServiceTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DataVersionService dataVersionService;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        dataVersionService = new DataVersionService(stringRedisTemplate, meterRegistry);
+    }
+
+    @Test
+    void testETagChangesWithVersion() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("version:user:user1")).thenReturn("41", "42");
+
+        String before = dataVersionService.eTag(DataVersionService.userScope("user1"));
+        String after = dataVersionService.eTag(DataVersionService.userScope("user1"));
+
+        assertNotEquals(before, after);
+        assertTrue(before.startsWith("\"") && before.endsWith("-41\""));
+    }
+
+    @Test
+    void testETagIsScopedToTheCaller() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(anyString())).thenReturn("7");
+
+        assertNotEquals(dataVersionService.eTag(DataVersionService.userScope("user1")),
+                dataVersionService.eTag(DataVersionService.userScope("user2")));
+    }
+
+    @Test
+    void testMissingVersionStartsFromClock() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("version:slots")).thenReturn(null);
+        when(valueOperations.setIfAbsent(eq("version:slots"), anyString())).thenReturn(true);
+        long before = System.currentTimeMillis();
+
+        String version = dataVersionService.current(DataVersionService.ALL_SLOTS);
+
+        assertTrue(Long.parseLong(version) >= before);
+    }
+
+    @Test
+    void testRedisFailureDisablesETag() {
+        when(stringRedisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertNull(dataVersionService.eTag(DataVersionService.ALL_SLOTS));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSlotChangeBumpsGlobalAndProviderVersions() {
+        dataVersionService.onSlotChanged(new SlotChangedEvent(10L, 2L, "provider1"));
+
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of("version:slots")), anyString());
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of("version:provider:provider1")), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAppointmentChangeBumpsUserAndProviderVersions() {
+        dataVersionService.onAppointmentChanged(new AppointmentChangedEvent(50L, "user1", "provider1"));
+
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of("version:user:user1")), anyString());
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of("version:provider:provider1")), anyString());
+        assertEquals(2, meterRegistry.counter("data.version.bumps", "result", "success").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailedBumpIsCountedNotThrown() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), anyString()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        dataVersionService.bump(DataVersionService.ALL_SLOTS);
+
+        assertEquals(1, meterRegistry.counter("data.version.bumps", "result", "error").count());
+    }
+}
@@ -0,0 +1,148 @@
+package com.smartappointment.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.smartappointment.repository.AppointmentRepository;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.projection.AppointmentRow;
+import com.smartappointment.repository.projection.SlotRow;
+import com.smartappointment.util.enumerations.AppointmentStatus;
+import com.smartappointment.util.enumerations.ExportFormat;
+import com.smartappointment.util.enumerations.SlotStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportServiceTest {
+
+    @Mock
+    private SlotRepository slotRepository;
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private SimpleMeterRegistry meterRegistry;
+    private ExportService exportService;
+    private SlotRow first;
+    private SlotRow second;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        exportService = new ExportService(slotRepository, appointmentRepository, objectMapper, meterRegistry);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 9, 0);
+        first = new SlotRow(1L, "Consult, follow-up", start, start.plusMinutes(30), SlotStatus.AVAILABLE,
+                2L, "provider1", "p@example.com", "Cardiology");
+        second = new SlotRow(2L, "Checkup", start.plusHours(1), start.plusHours(1).plusMinutes(30), SlotStatus.BOOKED,
+                2L, "provider1", "p@example.com", "Cardiology");
+    }
+
+    @Test
+    void testNdjsonWritesOneTerminatedLinePerRow() throws Exception {
+        when(slotRepository.streamAllRows()).thenReturn(Stream.of(first, second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exportService.exportSlots(ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(2, count);
+        assertEquals(3, lines.length);
+        assertEquals("", lines[2]);
+        assertEquals(1L, objectMapper.readTree(lines[0]).get("id").asLong());
+        assertEquals("2030-01-01T09:00:00", objectMapper.readTree(lines[0]).get("startTime").asText());
+        assertEquals("BOOKED", objectMapper.readTree(lines[1]).get("status").asText());
+        assertEquals(2, meterRegistry.counter("export.rows", "dataset", "slots", "format", "ndjson").count());
+    }
+
+    @Test
+    void testCsvWritesHeaderAndQuotesValues() throws Exception {
+        when(slotRepository.streamAllRows()).thenReturn(Stream.of(first, second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportSlots(ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("id,description,startTime,endTime,status"));
+        assertTrue(lines[1].contains("\"Consult, follow-up\""));
+    }
+
+    @Test
+    void testStreamIsClosedAfterExport() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        AppointmentRow row = new AppointmentRow(5L, AppointmentStatus.BOOKED, 1L, "Consult", first.startTime(),
+                first.endTime(), 2L, "provider1", "p@example.com", "user1", "u@example.com");
+        when(appointmentRepository.streamRowsByProviderId(2L)).thenReturn(Stream.of(row).onClose(() -> closed.set(true)));
+
+        long count = exportService.exportAppointments(2L, ExportFormat.NDJSON, new ByteArrayOutputStream());
+
+        assertEquals(1, count);
+        assertTrue(closed.get());
+        verify(appointmentRepository, never()).streamAllRows();
+    }
+
+    @Test
+    void testEmptyExportWritesNothing() throws Exception {
+        when(appointmentRepository.streamAllRows()).thenReturn(Stream.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(0, exportService.exportAppointments(null, ExportFormat.NDJSON, out));
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void testRepositoriesHandBackCursorsNotLists() throws Exception {
+        assertEquals(Stream.class, SlotRepository.class.getMethod("streamAllRows").getReturnType());
+        assertEquals(Stream.class, AppointmentRepository.class.getMethod("streamAllRows").getReturnType());
+        assertEquals(Stream.class, AppointmentRepository.class.getMethod("streamRowsByProviderId", Long.class).getReturnType());
+    }
+
+    @Test
+    void testRowsAreWrittenWhileStillBeingRead() throws Exception {
+        int rows = 10_000;
+        AtomicInteger produced = new AtomicInteger();
+        AtomicLong producedAtFirstWrite = new AtomicLong(-1);
+        when(slotRepository.streamAllRows()).thenReturn(Stream.generate(() -> {
+            produced.incrementAndGet();
+            return first;
+        }).limit(rows));
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) {
+                producedAtFirstWrite.compareAndSet(-1, produced.get());
+            }
+        };
+
+        assertEquals(rows, exportService.exportSlots(ExportFormat.CSV, out));
+
+        // bytes reached the client before the cursor was drained, so the rows were never collected first
+        assertTrue(producedAtFirstWrite.get() > 0 && producedAtFirstWrite.get() < rows,
+                "first write after " + producedAtFirstWrite.get() + " rows");
+    }
+
+    @Test
+    void testUnknownFormatIsBadRequest() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> ExportFormat.from("xml"));
+        assertEquals("Unsupported export format: xml", ex.getMessage());
+        assertEquals(ExportFormat.CSV, ExportFormat.from("CSV"));
+    }
+}
@@ -0,0 +1,166 @@
+package com.smartappointment.service;
+
+import com.smartappointment.dto.AppointmentResponseDto;
+import com.smartappointment.entity.Slot;
+import com.smartappointment.entity.User;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.UserRepository;
+import com.smartappointment.util.enumerations.SlotStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FlashBookingServiceTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @Mock
+    private SlotRepository slotRepository;
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private FlashBookingService flashBookingService;
+    private Slot slot;
+    private AppointmentResponseDto booked;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        flashBookingService = new FlashBookingService(stringRedisTemplate, slotRepository, userRepository, meterRegistry);
+
+        User provider = User.builder().id(2L).username("provider1").build();
+        slot = Slot.builder()
+                .id(100L)
+                .status(SlotStatus.AVAILABLE)
+                .startTime(LocalDateTime.now().plusHours(1))
+                .endTime(LocalDateTime.now().plusHours(2))
+                .provider(provider)
+                .build();
+        booked = AppointmentResponseDto.builder().appointmentId(200L).slotId(100L).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void claimReturns(long result) {
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of("flash:slot:100")), anyString())).thenReturn(result);
+    }
+
+    @Test
+    void testSlotNotInFlashModeBooksDirectly() {
+        claimReturns(-1L);
+
+        assertSame(booked, flashBookingService.book(100L, "user1", () -> booked));
+    }
+
+    @Test
+    void testWinnerProceedsToBooking() {
+        claimReturns(1L);
+
+        assertSame(booked, flashBookingService.book(100L, "user1", () -> booked));
+        assertEquals(1, meterRegistry.counter("flash.booking.claims", "result", "won").count());
+    }
+
+    @Test
+    void testLoserIsRejectedWithoutBooking() {
+        claimReturns(0L);
+        AtomicInteger bookings = new AtomicInteger();
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> flashBookingService.book(100L, "user1", () -> {
+            bookings.incrementAndGet();
+            return booked;
+        }));
+
+        assertEquals(0, bookings.get());
+        assertTrue(ex.getMessage().contains("waitlist"));
+        verifyNoInteractions(slotRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailedBookingRestoresDatabaseState() {
+        claimReturns(1L);
+        when(slotRepository.findById(100L)).thenReturn(Optional.of(slot));
+
+        assertThrows(IllegalStateException.class, () -> flashBookingService.book(100L, "user1", () -> {
+            throw new IllegalStateException("You have reached the maximum number of bookings for today");
+        }));
+
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of("flash:slot:100")), anyString(), eq("AVAILABLE"));
+    }
+
+    @Test
+    void testEnableForSlotStagesAvailabilityUntilSlotEnds() {
+        when(slotRepository.findById(100L)).thenReturn(Optional.of(slot));
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        flashBookingService.enableForSlot(100L, "provider1");
+
+        verify(valueOperations).set(eq("flash:slot:100"), eq("AVAILABLE"), any(Duration.class));
+    }
+
+    @Test
+    void testEnableForSlotRequiresOwner() {
+        when(slotRepository.findById(100L)).thenReturn(Optional.of(slot));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> flashBookingService.enableForSlot(100L, "someoneelse"));
+        assertEquals(HttpStatus.FORBIDDEN, ex.getStatusCode());
+    }
+
+    @Test
+    void testRefreshIgnoresSlotsOutsideFlashMode() {
+        when(stringRedisTemplate.hasKey("flash:slot:100")).thenReturn(false);
+        when(stringRedisTemplate.hasKey("flash:provider:2")).thenReturn(false);
+
+        flashBookingService.refresh(slot);
+
+        verify(stringRedisTemplate, never()).opsForValue();
+    }
+
+    @Test
+    void testRefreshWaitsForCommit() {
+        when(stringRedisTemplate.hasKey("flash:slot:100")).thenReturn(true);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            flashBookingService.refresh(slot);
+            slot.setStatus(SlotStatus.BOOKED);
+            flashBookingService.refresh(slot);
+            verifyNoInteractions(stringRedisTemplate);
+
+            // the first transaction rolls back, the second commits
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.get(0).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            synchronizations.get(1).afterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // only the committed state reaches Redis, as it was when refresh was called
+        verify(valueOperations).set(eq("flash:slot:100"), eq("TAKEN"), any(Duration.class));
+        verify(valueOperations, never()).set(eq("flash:slot:100"), eq("AVAILABLE"), any(Duration.class));
+    }
+}
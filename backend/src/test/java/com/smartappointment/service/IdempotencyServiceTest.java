@@ -0,0 +1,123 @@
+package com.smartappointment.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.dto.AppointmentResponseDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    private static final String KEY = "idempotency:booking:user1:abc-123";
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private IdempotencyService idempotencyService;
+    private AppointmentResponseDto booked;
+
+    @BeforeEach
+    void setup() {
+        AppConfigProperties config = new AppConfigProperties();
+        config.setIdempotencyKeyTtlMinutes(60);
+        config.setIdempotencyInProgressTtlSeconds(30);
+        idempotencyService = new IdempotencyService(stringRedisTemplate, objectMapper, config);
+
+        booked = AppointmentResponseDto.builder()
+                .appointmentId(200L)
+                .slotId(100L)
+                .description("Consult")
+                .startTime(LocalDateTime.of(2030, 1, 1, 10, 0))
+                .endTime(LocalDateTime.of(2030, 1, 1, 10, 30))
+                .build();
+    }
+
+    @Test
+    void testWithoutKeyRunsBookingDirectly() {
+        AppointmentResponseDto response = idempotencyService.executeBooking(100L, "user1", null, () -> booked);
+
+        assertSame(booked, response);
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    void testFirstRequestStoresResponse() throws Exception {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        // reserved with the short in-progress lease, kept for the full TTL once answered
+        when(valueOperations.setIfAbsent(KEY, "IN_PROGRESS", Duration.ofSeconds(30))).thenReturn(true);
+
+        AppointmentResponseDto response = idempotencyService.executeBooking(100L, "user1", "abc-123", () -> booked);
+
+        assertSame(booked, response);
+        verify(valueOperations).set(KEY, objectMapper.writeValueAsString(booked), Duration.ofMinutes(60));
+    }
+
+    @Test
+    void testDuplicateReturnsStoredResponseWithoutBooking() throws Exception {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(KEY), eq("IN_PROGRESS"), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(KEY)).thenReturn(objectMapper.writeValueAsString(booked));
+        AtomicInteger bookings = new AtomicInteger();
+
+        AppointmentResponseDto response = idempotencyService.executeBooking(100L, "user1", "abc-123", () -> {
+            bookings.incrementAndGet();
+            return booked;
+        });
+
+        assertEquals(0, bookings.get());
+        assertEquals(200L, response.getAppointmentId());
+        assertEquals(booked.getStartTime(), response.getStartTime());
+    }
+
+    @Test
+    void testDuplicateWhileInProgressIsConflict() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(KEY), eq("IN_PROGRESS"), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(KEY)).thenReturn("IN_PROGRESS");
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.executeBooking(100L, "user1", "abc-123", () -> booked));
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+    }
+
+    @Test
+    void testKeyReusedForDifferentSlotIsRejected() throws Exception {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(KEY), eq("IN_PROGRESS"), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(KEY)).thenReturn(objectMapper.writeValueAsString(booked));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.executeBooking(101L, "user1", "abc-123", () -> booked));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, ex.getStatusCode());
+    }
+
+    @Test
+    void testFailedBookingReleasesKey() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(KEY), eq("IN_PROGRESS"), any(Duration.class))).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> idempotencyService.executeBooking(100L, "user1", "abc-123", () -> {
+            throw new IllegalStateException("Slot is either booked or expired");
+        }));
+        verify(stringRedisTemplate).delete(KEY);
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+}
@@ -0,0 +1,156 @@
+package com.smartappointment.service;
+
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.entity.Slot;
+import com.smartappointment.entity.User;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.projection.SlotInterval;
+import com.smartappointment.repository.projection.SlotRow;
+import com.smartappointment.util.enumerations.SlotStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProviderIntervalIndexTest {
+
+    @Mock
+    private SlotRepository slotRepository;
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private ProviderIntervalIndex providerIntervalIndex;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setup() {
+        AppConfigProperties config = new AppConfigProperties();
+        config.setProviderIntervalIndexMaxProviders(100);
+        providerIntervalIndex = new ProviderIntervalIndex(slotRepository, config, new SimpleMeterRegistry(), listenerContainer);
+        base = LocalDateTime.now().plusDays(1).withNano(0);
+    }
+
+    private SlotInterval interval(long id, int startMinutes, int endMinutes) {
+        return new SlotInterval(id, base.plusMinutes(startMinutes), base.plusMinutes(endMinutes));
+    }
+
+    private Slot slot(long id, int startMinutes, int endMinutes, SlotStatus status) {
+        User provider = new User();
+        provider.setId(2L);
+        Slot slot = new Slot();
+        slot.setId(id);
+        slot.setProvider(provider);
+        slot.setStartTime(base.plusMinutes(startMinutes));
+        slot.setEndTime(base.plusMinutes(endMinutes));
+        slot.setStatus(status);
+        return slot;
+    }
+
+    @Test
+    void testOverlapsHalfOpenIntervals() {
+        when(slotRepository.findOpenIntervalsByProviderId(2L)).thenReturn(List.of(interval(1L, 60, 90), interval(2L, 120, 300)));
+
+        assertTrue(providerIntervalIndex.overlaps(2L, base.plusMinutes(80), base.plusMinutes(100), null));
+        assertTrue(providerIntervalIndex.overlaps(2L, base.plusMinutes(200), base.plusMinutes(230), null));
+        assertFalse(providerIntervalIndex.overlaps(2L, base.plusMinutes(90), base.plusMinutes(120), null));
+        assertFalse(providerIntervalIndex.overlaps(2L, base, base.plusMinutes(60), null));
+        assertFalse(providerIntervalIndex.overlaps(2L, base.plusMinutes(60), base.plusMinutes(90), 1L));
+        verify(slotRepository, times(1)).findOpenIntervalsByProviderId(2L);
+    }
+
+    @Test
+    void testSavedAndDeletedSlotsUpdateLoadedProvider() {
+        when(slotRepository.findOpenIntervalsByProviderId(2L)).thenReturn(List.of(interval(1L, 60, 90)));
+        assertFalse(providerIntervalIndex.overlaps(2L, base, base.plusMinutes(30), null));
+
+        providerIntervalIndex.slotSaved(slot(3L, 0, 30, SlotStatus.AVAILABLE));
+        assertTrue(providerIntervalIndex.overlaps(2L, base, base.plusMinutes(30), null));
+
+        // moving the slot frees its old interval
+        providerIntervalIndex.slotSaved(slot(3L, 200, 230, SlotStatus.AVAILABLE));
+        assertFalse(providerIntervalIndex.overlaps(2L, base, base.plusMinutes(30), null));
+
+        providerIntervalIndex.slotSaved(slot(1L, 60, 90, SlotStatus.EXPIRED));
+        providerIntervalIndex.slotDeleted(2L, 3L);
+        assertFalse(providerIntervalIndex.overlaps(2L, base, base.plusMinutes(300), null));
+    }
+
+    @Test
+    void testInvalidationMessageRefreshesSlot() {
+        when(slotRepository.findOpenIntervalsByProviderId(2L)).thenReturn(List.of());
+        assertFalse(providerIntervalIndex.overlaps(2L, base, base.plusMinutes(30), null));
+        when(slotRepository.findRowById(5L)).thenReturn(Optional.of(new SlotRow(5L, "Consult", base, base.plusMinutes(30),
+                SlotStatus.BOOKED, 2L, "provider1", "p@example.com", "Cardiology")));
+
+        providerIntervalIndex.onMessage(new DefaultMessage(
+                SlotSnapshotCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "5".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertTrue(providerIntervalIndex.overlaps(2L, base, base.plusMinutes(30), null));
+    }
+
+    @Test
+    void testRefreshOfDeletedSlotRemovesIt() {
+        when(slotRepository.findOpenIntervalsByProviderId(2L)).thenReturn(List.of(interval(5L, 0, 30)));
+        assertTrue(providerIntervalIndex.overlaps(2L, base, base.plusMinutes(30), null));
+        when(slotRepository.findRowById(5L)).thenReturn(Optional.empty());
+
+        providerIntervalIndex.refresh(5L);
+
+        assertFalse(providerIntervalIndex.overlaps(2L, base, base.plusMinutes(30), null));
+    }
+
+    @Test
+    void testFailedRefreshReloadsProviders() {
+        when(slotRepository.findOpenIntervalsByProviderId(2L))
+                .thenReturn(List.of())
+                .thenReturn(List.of(interval(5L, 0, 30)));
+        assertFalse(providerIntervalIndex.overlaps(2L, base, base.plusMinutes(30), null));
+        when(slotRepository.findRowById(5L)).thenThrow(new QueryTimeoutException("timeout"));
+
+        providerIntervalIndex.refresh(5L);
+
+        assertTrue(providerIntervalIndex.overlaps(2L, base, base.plusMinutes(30), null));
+        verify(slotRepository, times(2)).findOpenIntervalsByProviderId(2L);
+    }
+
+    @Test
+    void testBatchInvalidationLoadsSlotsInOneQuery() {
+        when(slotRepository.findOpenIntervalsByProviderId(2L)).thenReturn(List.of());
+        assertFalse(providerIntervalIndex.overlaps(2L, base, base.plusMinutes(30), null));
+        when(slotRepository.findRowsByIdIn(List.of(5L, 6L))).thenReturn(List.of(
+                new SlotRow(5L, "Consult", base, base.plusMinutes(30), SlotStatus.AVAILABLE, 2L, "provider1", "p@example.com", "Cardiology"),
+                new SlotRow(6L, "Consult", base.plusMinutes(30), base.plusMinutes(60), SlotStatus.AVAILABLE, 2L, "provider1", "p@example.com", "Cardiology")));
+
+        providerIntervalIndex.onMessage(new DefaultMessage(
+                SlotSnapshotCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                SlotInvalidation.batch(2L, List.of(5L, 6L)).getBytes(StandardCharsets.UTF_8)), null);
+
+        assertTrue(providerIntervalIndex.overlaps(2L, base.plusMinutes(40), base.plusMinutes(50), null));
+        verify(slotRepository, never()).findRowById(anyLong());
+        verify(slotRepository, times(1)).findOpenIntervalsByProviderId(2L);
+    }
+
+    @Test
+    void testBatchInvalidationSkipsProvidersNotLoaded() {
+        providerIntervalIndex.onMessage(new DefaultMessage(
+                SlotSnapshotCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                SlotInvalidation.batch(2L, List.of(5L, 6L)).getBytes(StandardCharsets.UTF_8)), null);
+
+        verifyNoInteractions(slotRepository);
+    }
+}
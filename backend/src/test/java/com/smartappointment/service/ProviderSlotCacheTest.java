@@ -0,0 +1,107 @@
+package com.smartappointment.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.dto.SlotResponseDto;
+import com.smartappointment.event.SlotChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProviderSlotCacheTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @Mock
+    private AppConfigProperties config;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private SimpleMeterRegistry meterRegistry;
+    private ProviderSlotCache providerSlotCache;
+    private List<SlotResponseDto> slots;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        providerSlotCache = new ProviderSlotCache(stringRedisTemplate, objectMapper, config, meterRegistry);
+        slots = List.of(SlotResponseDto.builder()
+                .id(10L)
+                .description("Consult")
+                .startTime(LocalDateTime.of(2030, 1, 1, 9, 0))
+                .endTime(LocalDateTime.of(2030, 1, 1, 9, 30))
+                .status("AVAILABLE")
+                .providerUsername("provider1")
+                .build());
+    }
+
+    @Test
+    void testHitSkipsLoader() throws Exception {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("cache:provider-slots:provider1")).thenReturn(objectMapper.writeValueAsString(slots));
+        AtomicInteger loads = new AtomicInteger();
+
+        List<SlotResponseDto> result = providerSlotCache.get("provider1", () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+
+        assertEquals(0, loads.get());
+        assertEquals(10L, result.get(0).getId());
+        assertEquals(1, meterRegistry.counter("cache.provider.slots", "result", "hit").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMissLoadsAndStoresAgainstObservedGeneration() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("cache:provider-slots:provider1")).thenReturn(null);
+        when(valueOperations.get("cache:provider-slots:gen:provider1")).thenReturn("7");
+        when(config.getProviderSlotCacheTtlSeconds()).thenReturn(300);
+
+        List<SlotResponseDto> result = providerSlotCache.get("provider1", () -> slots);
+
+        assertSame(slots, result);
+        assertEquals(1, meterRegistry.counter("cache.provider.slots", "result", "miss").count());
+        verify(stringRedisTemplate).execute(any(RedisScript.class),
+                eq(List.of("cache:provider-slots:provider1", "cache:provider-slots:gen:provider1")),
+                eq("7"), anyString(), eq("300"));
+    }
+
+    @Test
+    void testRedisFailureFallsBackToLoader() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertSame(slots, providerSlotCache.get("provider1", () -> slots));
+        assertEquals(1, meterRegistry.counter("cache.provider.slots", "result", "error").count());
+    }
+
+    @Test
+    void testSlotChangeBumpsGenerationAndEvicts() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        providerSlotCache.onSlotChanged(new SlotChangedEvent(10L, 1L, "provider1"));
+
+        verify(valueOperations).increment("cache:provider-slots:gen:provider1");
+        verify(stringRedisTemplate).delete("cache:provider-slots:provider1");
+        assertEquals(1, meterRegistry.counter("cache.provider.slots.evictions").count());
+    }
+}
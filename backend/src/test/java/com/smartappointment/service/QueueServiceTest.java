@@ -1,17 +1,23 @@
 package com.smartappointment.service;
 
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.dto.QueuePositionDto;
 import com.smartappointment.entity.Appointment;
 import com.smartappointment.entity.Slot;
 import com.smartappointment.entity.User;
 import com.smartappointment.repository.AppointmentRepository;
-import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.UserRepository;
+import com.smartappointment.repository.projection.SlotRow;
 import com.smartappointment.util.enumerations.AppointmentStatus;
 import com.smartappointment.util.enumerations.SlotStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
-import org.springframework.data.redis.core.ListOperations;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -25,16 +31,22 @@ class QueueServiceTest {
     private QueueService queueService;
 
     @Mock
-    private RedisTemplate<String, User> redisTemplate;
+    private UserRepository userRepository;
 
     @Mock
     private AppointmentRepository appointmentRepository;
 
     @Mock
-    private SlotRepository slotRepository;
+    private ZSetOperations<String, String> zSetOperations;
 
     @Mock
-    private ListOperations<String, User> listOperations;
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private SlotSnapshotCache slotSnapshotCache;
+
+    @Mock
+    private AppConfigProperties config;
 
     private User user;
     private Slot slot;
@@ -54,72 +66,186 @@ class QueueServiceTest {
         slot.setStartTime(futureStartTime);
         slot.setEndTime(futureEndTime);
         slot.setStatus(SlotStatus.BOOKED);
+        slot.setProvider(User.builder().id(2L).username("provider1").build());
 
-        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
     }
+
+    private void joinScriptReturns(long result) {
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of("queue:slot:100", "queue:user:1")), any(Object[].class)))
+                .thenReturn(result);
+    }
+
+    private SlotRow snapshot(Slot slot) {
+        return new SlotRow(slot.getId(), slot.getDescription(), slot.getStartTime(), slot.getEndTime(), slot.getStatus(),
+                2L, "provider1", null, null);
+    }
+
     @Test
     void testJoinQueueSuccess() {
-        when(slotRepository.findById(100L)).thenReturn(Optional.of(slot));
+        when(slotSnapshotCache.get(100L)).thenReturn(Optional.of(snapshot(slot)));
         when(appointmentRepository.findBySlotId(100L)).thenReturn(null);
-        when(appointmentRepository.findByUser(user)).thenReturn(Collections.emptyList());
-        when(redisTemplate.keys("queue:slot:*")).thenReturn(Collections.emptySet());
+        joinScriptReturns(1L);
 
         queueService.joinQueue(100L, user);
 
-        verify(listOperations).rightPush("queue:slot:100", user);
+        // one script call checks the user's memberships and joins; no keyspace scan, no other queues read
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of("queue:slot:100", "queue:user:1")), args.capture());
+        assertEquals("100", args.getValue()[0]);
+        assertEquals("1", args.getValue()[4]);
+        verify(stringRedisTemplate, never()).keys(anyString());
+        verifyNoInteractions(zSetOperations);
     }
 
     @Test
-    void testJoinQueue_ClashingAppointment_ThrowsException() {
-        when(slotRepository.findById(100L)).thenReturn(Optional.of(slot));
+    void testJoinQueue_QueuedForOverlappingSlot_ThrowsException() {
+        when(slotSnapshotCache.get(100L)).thenReturn(Optional.of(snapshot(slot)));
         when(appointmentRepository.findBySlotId(100L)).thenReturn(null);
+        joinScriptReturns(0L);
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () ->
+                queueService.joinQueue(100L, user));
+
+        assertTrue(ex.getMessage().contains("same time window"));
+    }
+
+    @Test
+    void testJoinQueue_HeldSlot_ThrowsException() {
+        slot.setStatus(SlotStatus.HELD);
+        when(slotSnapshotCache.get(100L)).thenReturn(Optional.of(snapshot(slot)));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () ->
+                queueService.joinQueue(100L, user));
 
-        Slot otherSlot = new Slot();
-        // Set overlapping time with the test slot (which is already +1 day)
-        otherSlot.setStartTime(slot.getStartTime().minusMinutes(30));
-        otherSlot.setEndTime(slot.getStartTime().plusMinutes(30));
+        assertTrue(ex.getMessage().contains("held"));
+        verify(stringRedisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
 
-        Appointment existing = new Appointment();
-        existing.setSlot(otherSlot);
+    @Test
+    void testJoinQueue_ClashingAppointment_ThrowsException() {
+        when(slotSnapshotCache.get(100L)).thenReturn(Optional.of(snapshot(slot)));
+        when(appointmentRepository.findBySlotId(100L)).thenReturn(null);
 
-        when(appointmentRepository.findByUser(user)).thenReturn(List.of(existing));
+        when(appointmentRepository.existsByUserIdAndStatusAndSlotStartTimeBeforeAndSlotEndTimeAfter(
+                1L, AppointmentStatus.BOOKED, slot.getEndTime(), slot.getStartTime())).thenReturn(true);
 
         RuntimeException ex = assertThrows(RuntimeException.class, () ->
                 queueService.joinQueue(100L, user));
 
         assertTrue(ex.getMessage().contains("booked appointment"));
+        verify(appointmentRepository, never()).findByUser(any());
+    }
+
+    @Test
+    void testJoinQueue_ExpiredHistoryDoesNotClash() {
+        when(slotSnapshotCache.get(100L)).thenReturn(Optional.of(snapshot(slot)));
+        when(appointmentRepository.findBySlotId(100L)).thenReturn(null);
+        joinScriptReturns(1L);
+
+        queueService.joinQueue(100L, user);
+
+        // the clash check only asks about live bookings, so expired or completed rows never match
+        verify(appointmentRepository).existsByUserIdAndStatusAndSlotStartTimeBeforeAndSlotEndTimeAfter(
+                1L, AppointmentStatus.BOOKED, slot.getEndTime(), slot.getStartTime());
+        verify(appointmentRepository, never()).findByUser(any());
     }
 
 
+    private void claimScriptReturns(String lease) {
+        when(config.getQueueLeaseMillis()).thenReturn(30_000L);
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of("queue:slot:100", "queue:leases")), eq("100"), eq("30000")))
+                .thenReturn(lease);
+    }
+
     @Test
-    void testDequeueNextAndBook() {
-        when(listOperations.leftPop("queue:slot:100")).thenReturn(user);
-        when(slotRepository.findById(100L)).thenReturn(Optional.of(slot));
+    void testClaimNextReturnsLease() {
+        claimScriptReturns("100:1:1735689600000000");
 
-        queueService.dequeueNextAndBook(100L);
+        QueueService.Lease lease = queueService.claimNext(100L).orElseThrow();
 
-        verify(appointmentRepository).save(any(Appointment.class));
+        assertEquals(new QueueService.Lease(100L, 1L, "1735689600000000"), lease);
+        assertEquals("100:1:1735689600000000", lease.toString());
+        // nothing is booked or read from the database while claiming
+        verifyNoInteractions(userRepository, appointmentRepository);
     }
 
     @Test
-    void testLeaveQueue_UserPresent_RemovesUser() {
-        List<User> queue = new ArrayList<>(List.of(user));
+    void testClaimNextEmptyQueue() {
+        claimScriptReturns(null);
+
+        assertTrue(queueService.claimNext(100L).isEmpty());
+    }
 
-        when(redisTemplate.hasKey("queue:slot:100")).thenReturn(true);
-        when(listOperations.range("queue:slot:100", 0, -1)).thenReturn(queue);
+    @Test
+    void testClaimedLeaseSettlesWithTransaction() {
+        claimScriptReturns("100:1:1735689600000000");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            queueService.claimNext(100L);
+            queueService.claimNext(100L);
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            assertEquals(2, synchronizations.size());
+
+            synchronizations.get(0).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            synchronizations.get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // committed: acked, which also drops the membership; rolled back: back in the queue with its join score
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of("queue:leases", "queue:slot:100", "queue:user:1")),
+                eq("100:1:1735689600000000"), eq("100"), eq("1"));
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of("queue:leases", "queue:slot:100")),
+                eq("100:1:1735689600000000"), eq("1"), eq("1735689600000000"));
+    }
+
+    @Test
+    void testRecoverExpiredLeasesAcksOrRequeuesFromDatabase() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of("queue:leases")), eq("100")))
+                .thenReturn(List.of("100:1:10", "200:1:20", "300:1:30"));
+        Appointment promoted = new Appointment();
+        promoted.setUser(user);
+        Appointment kept = new Appointment();
+        kept.setUser(User.builder().id(9L).build());
+        // slot 100 went to the user, slot 300 was released; slot 200 still belongs to the canceller, so the
+        // promotion never committed (a committed one acks skipped users itself) and the user is requeued
+        when(appointmentRepository.findBySlotId(100L)).thenReturn(promoted);
+        when(appointmentRepository.findBySlotId(200L)).thenReturn(kept);
+        when(appointmentRepository.findBySlotId(300L)).thenReturn(null);
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), startsWith("100:"), any(), any())).thenReturn(1L);
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), startsWith("200:"), any(), any())).thenReturn(1L);
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), startsWith("300:"), any(), any())).thenReturn(0L);
+
+        assertEquals(2, queueService.recoverExpiredLeases());
+
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of("queue:leases", "queue:slot:100", "queue:user:1")),
+                eq("100:1:10"), eq("100"), eq("1"));
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of("queue:leases", "queue:slot:200")),
+                eq("200:1:20"), eq("1"), eq("20"));
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of("queue:leases", "queue:slot:300", "queue:user:1")),
+                eq("300:1:30"), eq("300"), eq("1"));
+    }
+
+    private void leaveScriptReturns(long result) {
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of("queue:slot:100", "queue:user:1")), eq("100"), eq("1")))
+                .thenReturn(result);
+    }
+
+    @Test
+    void testLeaveQueue_UserPresent_RemovesUser() {
+        leaveScriptReturns(1L);
 
         queueService.leaveQueue(100L, user);
 
-        verify(redisTemplate).delete("queue:slot:100");
-        verify(listOperations, never()).rightPush(eq("queue:slot:100"), any());
+        // a single script call; the list is never read back or rebuilt
+        verifyNoInteractions(zSetOperations);
+        verify(stringRedisTemplate, never()).delete(anyString());
     }
 
     @Test
     void testLeaveQueue_UserNotInQueue_Throws() {
-        List<User> queue = new ArrayList<>();
-
-        when(redisTemplate.hasKey("queue:slot:100")).thenReturn(true);
-        when(listOperations.range("queue:slot:100", 0, -1)).thenReturn(queue);
+        leaveScriptReturns(0L);
 
         RuntimeException ex = assertThrows(RuntimeException.class, () ->
                 queueService.leaveQueue(100L, user));
@@ -127,21 +253,78 @@ class QueueServiceTest {
         assertTrue(ex.getMessage().contains("not in the queue"));
     }
 
+    @Test
+    void testLeaveQueue_NoQueue_Throws() {
+        leaveScriptReturns(-1L);
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () ->
+                queueService.leaveQueue(100L, user));
+
+        assertTrue(ex.getMessage().contains("No queue exists"));
+    }
+
     @Test
     void testGetQueue() {
-        List<User> users = List.of(user);
-        when(listOperations.range("queue:slot:100", 0, -1)).thenReturn(users);
+        User second = User.builder().id(2L).username("user2").build();
+        when(zSetOperations.range("queue:slot:100", 0, -1)).thenReturn(new LinkedHashSet<>(List.of("2", "1")));
+        when(userRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(user, second));
 
         List<User> result = queueService.getQueue(100L);
 
-        assertEquals(1, result.size());
-        assertEquals("user1", result.get(0).getUsername());
+        assertEquals(List.of("user2", "user1"), result.stream().map(User::getUsername).toList());
+    }
+
+    @Test
+    void testGetQueueSizeReadsLengthOnly() {
+        when(zSetOperations.zCard("queue:slot:100")).thenReturn(3L);
+
+        assertEquals(3L, queueService.getQueueSize(100L));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testGetPositionIsOneBasedWithJoinTime() {
+        // 2025-01-01T00:00:00Z in epoch microseconds
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of("queue:slot:100")), eq("1")))
+                .thenReturn(List.of("0", "4", "1735689600000000"));
+
+        QueuePositionDto position = queueService.getPosition(100L, user);
+
+        assertEquals(100L, position.getSlotId());
+        assertEquals(1L, position.getPosition());
+        assertEquals(4L, position.getQueueSize());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 5, 30), position.getJoinedAt());
+        verifyNoInteractions(zSetOperations, userRepository);
+    }
+
+    @Test
+    void testGetPositionNotQueuedThrows() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of("queue:slot:100")), eq("1")))
+                .thenReturn(null);
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> queueService.getPosition(100L, user));
+
+        assertTrue(ex.getMessage().contains("not in the queue"));
+    }
+
+    @Test
+    void testGetPositionsReadsEveryQueueInOneCall() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of("queue:user:1")), eq("queue:slot:"), eq("1")))
+                .thenReturn(List.of("300", "5", "9", "1735689600000000", "100", "0", "2", "1.7356896e15"));
+
+        List<QueuePositionDto> positions = queueService.getPositions(user);
+
+        assertEquals(List.of(100L, 300L), positions.stream().map(QueuePositionDto::getSlotId).toList());
+        assertEquals(1L, positions.get(0).getPosition());
+        assertEquals(6L, positions.get(1).getPosition());
+        assertEquals(9L, positions.get(1).getQueueSize());
+        verify(stringRedisTemplate, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
     }
 
     @Test
     void testRemoveQueue() {
         queueService.removeQueue(100L);
-        verify(redisTemplate).delete("queue:slot:100");
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of("queue:slot:100")), eq("100"), eq("queue:user:"));
     }
 
 }
@@ -0,0 +1,146 @@
+package com.smartappointment.service;
+
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.dto.SlotHoldResponseDto;
+import com.smartappointment.entity.Slot;
+import com.smartappointment.entity.User;
+import com.smartappointment.event.SlotChangedEvent;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.UserRepository;
+import com.smartappointment.util.enumerations.SlotStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SlotHoldServiceTest {
+
+    @Mock
+    private SlotRepository slotRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+    @Mock
+    private AppConfigProperties config;
+    @Mock
+    private FlashBookingService flashBookingService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private QueueService queueService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SlotHoldService slotHoldService;
+    private User user;
+    private Slot slot;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        slotHoldService = new SlotHoldService(slotRepository, userRepository, stringRedisTemplate, config, meterRegistry, flashBookingService, queueService, eventPublisher);
+
+        user = User.builder().id(1L).username("user1").build();
+        slot = Slot.builder()
+                .id(100L)
+                .status(SlotStatus.HELD)
+                .startTime(LocalDateTime.now().plusHours(1))
+                .endTime(LocalDateTime.now().plusHours(2))
+                .provider(User.builder().id(2L).username("provider1").build())
+                .build();
+    }
+
+    @Test
+    void testHoldPlacesTimerEntry() {
+        when(userRepository.findByUsername("user1")).thenReturn(Optional.of(user));
+        when(config.getSlotHoldTtlSeconds()).thenReturn(300);
+        when(slotRepository.placeHold(eq(100L), eq(1L), any(LocalDateTime.class))).thenReturn(1);
+        when(slotRepository.findById(100L)).thenReturn(Optional.of(slot));
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+
+        SlotHoldResponseDto hold = slotHoldService.hold(100L, "user1");
+
+        assertEquals("HELD", hold.getStatus());
+        assertTrue(hold.getExpiresAt().isAfter(LocalDateTime.now().plusSeconds(290)));
+        verify(zSetOperations).add(eq(SlotHoldService.EXPIRY_KEY), startsWith("100:"), anyDouble());
+        verify(flashBookingService).refresh(slot);
+        verify(eventPublisher).publishEvent(new SlotChangedEvent(100L, 2L, "provider1"));
+    }
+
+    @Test
+    void testHoldRejectsUnavailableSlot() {
+        when(userRepository.findByUsername("user1")).thenReturn(Optional.of(user));
+        when(config.getSlotHoldTtlSeconds()).thenReturn(300);
+        when(slotRepository.placeHold(eq(100L), eq(1L), any(LocalDateTime.class))).thenReturn(0);
+        when(slotRepository.existsById(100L)).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> slotHoldService.hold(100L, "user1"));
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    void testReleaseRequiresHolder() {
+        when(userRepository.findByUsername("user1")).thenReturn(Optional.of(user));
+        when(slotRepository.releaseHold(100L, 1L)).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> slotHoldService.release(100L, "user1"));
+        verify(flashBookingService, never()).refresh(any());
+        verifyNoInteractions(queueService);
+    }
+
+    @Test
+    void testReleaseClearsQueue() {
+        slot.setStatus(SlotStatus.AVAILABLE);
+        when(userRepository.findByUsername("user1")).thenReturn(Optional.of(user));
+        when(slotRepository.releaseHold(100L, 1L)).thenReturn(1);
+        when(slotRepository.findById(100L)).thenReturn(Optional.of(slot));
+
+        slotHoldService.release(100L, "user1");
+
+        verify(queueService).clearQueueForSlot(100L);
+    }
+
+    @Test
+    void testFindDueHoldsReadsOnlyDueTimers() {
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScore(eq(SlotHoldService.EXPIRY_KEY), eq(0.0), anyDouble(), eq(0L), eq(100L)))
+                .thenReturn(new LinkedHashSet<>(List.of("100:1700000000000")));
+
+        assertEquals(List.of("100:1700000000000"), slotHoldService.findDueHolds());
+        verifyNoInteractions(slotRepository);
+    }
+
+    @Test
+    void testExpireHoldsReleasesDueSlots() {
+        when(slotRepository.expireHolds(eq(List.of(100L, 101L)), any(LocalDateTime.class))).thenReturn(1);
+        slot.setStatus(SlotStatus.AVAILABLE);
+        // 101 was confirmed before its timer came due, so it is still booked
+        Slot confirmed = Slot.builder().id(101L).status(SlotStatus.BOOKED).endTime(LocalDateTime.now().plusHours(2))
+                .provider(slot.getProvider()).build();
+        when(slotRepository.findAllById(List.of(100L, 101L))).thenReturn(List.of(slot, confirmed));
+
+        int expired = slotHoldService.expireHolds(List.of("100:1700000000000", "101:1700000000000", "100:1600000000000"));
+
+        assertEquals(1, expired);
+        assertEquals(1, meterRegistry.counter("slot.holds", "result", "expired").count());
+        verify(flashBookingService).refresh(slot);
+        verify(queueService).clearQueueForSlot(100L);
+        verify(queueService, never()).clearQueueForSlot(101L);
+    }
+}
@@ -1,14 +1,24 @@
 package com.smartappointment.service;
 
 import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.dto.AvailabilitySearchRequestDto;
+import com.smartappointment.dto.SlotPageResponseDto;
 import com.smartappointment.dto.SlotRequestDto;
 import com.smartappointment.dto.SlotResponseDto;
+import com.smartappointment.dto.SlotSearchRequestDto;
+import com.smartappointment.dto.SlotTemplateRequestDto;
+import com.smartappointment.dto.SlotTemplateResponseDto;
+import com.smartappointment.entity.Appointment;
 import com.smartappointment.entity.Slot;
 import com.smartappointment.entity.User;
+import com.smartappointment.event.AppointmentChangedEvent;
+import com.smartappointment.event.SlotChangedEvent;
+import com.smartappointment.event.SlotsCreatedEvent;
 import com.smartappointment.notification.NotificationService;
-import com.smartappointment.notification.kafka.producer.KafkaProducerService;
+import com.smartappointment.repository.AppointmentRepository;
 import com.smartappointment.repository.SlotRepository;
 import com.smartappointment.repository.UserRepository;
+import com.smartappointment.repository.projection.SlotRow;
 import com.smartappointment.util.enumerations.SlotStatus;
 import org.apache.kafka.common.errors.ResourceNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,12 +26,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.*;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -38,17 +56,38 @@ class SlotServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
     @Mock
     private AppConfigProperties config;
 
     @Mock
     private QueueService queueService;
+    @Mock
+    private FlashBookingService flashBookingService;
 
     @Mock
     private NotificationService notificationService;
 
     @Mock
-    private KafkaProducerService kafkaProducerService;
+    private OutboxService outboxService;
+
+    @Mock
+    private ProviderSlotCache providerSlotCache;
+
+    @Mock
+    private SlotSnapshotCache slotSnapshotCache;
+
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @Mock
+    private ProviderIntervalIndex providerIntervalIndex;
+
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     private User provider;
     private Slot slot;
@@ -68,6 +107,63 @@ class SlotServiceTest {
 
     }
 
+    private Slot slotAt(long id, LocalDateTime start) {
+        return Slot.builder().id(id).description("Consult").startTime(start).endTime(start.plusMinutes(30))
+                .status(SlotStatus.AVAILABLE).provider(provider).build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSearchSlotsReturnsPageAndCursor() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 9, 0);
+        when(slotRepository.findBy(any(Specification.class), any())).thenReturn(List.of(
+                slotAt(1L, start), slotAt(2L, start), slotAt(3L, start.plusHours(1))));
+
+        SlotPageResponseDto page = slotService.searchSlots(SlotSearchRequestDto.builder()
+                .status(List.of(SlotStatus.AVAILABLE))
+                .size(2)
+                .build());
+
+        assertEquals(2, page.getSlots().size());
+        assertTrue(page.isHasMore());
+        assertEquals(2L, page.getSlots().get(1).getId());
+        assertEquals("Cardiology", page.getSlots().get(0).getProviderSpecialization());
+        assertNotNull(page.getNextCursor());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSearchSlotsLastPageHasNoCursor() {
+        when(slotRepository.findBy(any(Specification.class), any())).thenReturn(List.of(slot));
+
+        SlotPageResponseDto page = slotService.searchSlots(SlotSearchRequestDto.builder().size(2).build());
+
+        assertEquals(1, page.getSlots().size());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSearchSlotsAcceptsItsOwnCursor() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 9, 0);
+        when(slotRepository.findBy(any(Specification.class), any()))
+                .thenReturn(List.of(slotAt(1L, start), slotAt(2L, start)))
+                .thenReturn(List.of());
+
+        String cursor = slotService.searchSlots(SlotSearchRequestDto.builder().size(1).build()).getNextCursor();
+        SlotPageResponseDto next = slotService.searchSlots(SlotSearchRequestDto.builder().size(1).cursor(cursor).build());
+
+        assertTrue(next.getSlots().isEmpty());
+    }
+
+    @Test
+    void testSearchSlotsRejectsInvalidCursor() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> slotService.searchSlots(SlotSearchRequestDto.builder().cursor("not-a-cursor").build()));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+    }
+
     @Test
     void testAddSlotSuccess() {
         SlotRequestDto request = new SlotRequestDto();
@@ -77,8 +173,8 @@ class SlotServiceTest {
         request.setEndTime(slot.getEndTime());
 
         when(userRepository.findByUsername("provider1")).thenReturn(Optional.of(provider));
-        when(slotRepository.findByProvider(provider)).thenReturn(List.of());
-        when(slotRepository.save(any(Slot.class))).thenReturn(slot);
+        when(providerIntervalIndex.overlaps(1L, request.getStartTime(), request.getEndTime(), null)).thenReturn(false);
+        when(slotRepository.saveAndFlush(any(Slot.class))).thenReturn(slot);
         when(config.getMinSlotDurationMinutes()).thenReturn(30);
         when(config.getMaxSlotDurationMinutes()).thenReturn(180);
         SlotResponseDto response = slotService.addSlot(request, "provider1");
@@ -87,6 +183,7 @@ class SlotServiceTest {
         assertEquals("AVAILABLE", response.getStatus());
         assertEquals(10L, response.getId());
         assertEquals("Cardiology", response.getProviderSpecialization());
+        verify(eventPublisher).publishEvent(new SlotChangedEvent(10L, 1L, "provider1"));
     }
 
     @Test
@@ -106,11 +203,49 @@ class SlotServiceTest {
         request.setEndTime(slot.getEndTime());
 
         when(userRepository.findByUsername("provider1")).thenReturn(Optional.of(provider));
-        when(slotRepository.findByProvider(provider)).thenReturn(List.of(slot));
+        when(providerIntervalIndex.overlaps(1L, request.getStartTime(), request.getEndTime(), null)).thenReturn(true);
 
         assertThrows(IllegalStateException.class, () -> slotService.addSlot(request, "provider1"));
     }
 
+    @Test
+    void testAddSlotOverlapRejectedByDatabase() {
+        SlotRequestDto request = new SlotRequestDto();
+        request.setDescription("Consult");
+        request.setStatus("AVAILABLE");
+        request.setStartTime(slot.getStartTime());
+        request.setEndTime(slot.getEndTime());
+
+        when(userRepository.findByUsername("provider1")).thenReturn(Optional.of(provider));
+        when(providerIntervalIndex.overlaps(1L, request.getStartTime(), request.getEndTime(), null)).thenReturn(false);
+        when(config.getMinSlotDurationMinutes()).thenReturn(30);
+        when(config.getMaxSlotDurationMinutes()).thenReturn(180);
+        when(slotRepository.saveAndFlush(any(Slot.class))).thenThrow(new DataIntegrityViolationException("overlap",
+                new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> slotService.addSlot(request, "provider1"));
+        assertEquals("This provider already has a slot that overlaps with the given time range.", ex.getMessage());
+        verify(providerIntervalIndex, never()).slotSaved(any());
+    }
+
+    @Test
+    void testAddSlotOtherIntegrityErrorsPropagate() {
+        SlotRequestDto request = new SlotRequestDto();
+        request.setDescription("Consult");
+        request.setStatus("AVAILABLE");
+        request.setStartTime(slot.getStartTime());
+        request.setEndTime(slot.getEndTime());
+
+        when(userRepository.findByUsername("provider1")).thenReturn(Optional.of(provider));
+        when(providerIntervalIndex.overlaps(1L, request.getStartTime(), request.getEndTime(), null)).thenReturn(false);
+        when(config.getMinSlotDurationMinutes()).thenReturn(30);
+        when(config.getMaxSlotDurationMinutes()).thenReturn(180);
+        when(slotRepository.saveAndFlush(any(Slot.class))).thenThrow(new DataIntegrityViolationException("not null",
+                new SQLException("null value in column", "23502")));
+
+        assertThrows(DataIntegrityViolationException.class, () -> slotService.addSlot(request, "provider1"));
+    }
+
     @Test
     void testAddSlotInvalidDuration() {
         SlotRequestDto request = new SlotRequestDto();
@@ -120,15 +255,123 @@ class SlotServiceTest {
         request.setEndTime(slot.getStartTime().plusMinutes(10)); // too short
 
         when(userRepository.findByUsername("provider1")).thenReturn(Optional.of(provider));
-        when(slotRepository.findByProvider(provider)).thenReturn(List.of());
+        when(providerIntervalIndex.overlaps(1L, request.getStartTime(), request.getEndTime(), null)).thenReturn(false);
 
         assertThrows(IllegalStateException.class, () -> slotService.addSlot(request, "provider1"));
     }
 
+    private SlotTemplateRequestDto weekdayTemplate(int weeks) {
+        return SlotTemplateRequestDto.builder()
+                .description("Clinic hours")
+                .daysOfWeek(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY))
+                .dayStart(LocalTime.of(9, 0))
+                .dayEnd(LocalTime.of(17, 0))
+                .slotMinutes(30)
+                .startDate(LocalDate.now().plusDays(1))
+                .weeks(weeks)
+                .build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAddSlotsFromTemplateInsertsOneBatch() {
+        when(userRepository.findByUsername("provider1")).thenReturn(Optional.of(provider));
+        when(config.getMinSlotDurationMinutes()).thenReturn(30);
+        when(config.getMaxSlotDurationMinutes()).thenReturn(180);
+        when(config.getSlotTemplateMaxSlots()).thenReturn(2000);
+        doAnswer(invocation -> {
+            List<Slot> slots = invocation.getArgument(0);
+            for (int i = 0; i < slots.size(); i++) {
+                slots.get(i).setId(100L + i);
+            }
+            return slots;
+        }).when(slotRepository).saveAllAndFlush(anyList());
+
+        SlotTemplateResponseDto response = slotService.addSlotsFromTemplate(weekdayTemplate(12), "provider1");
+
+        // 12 weeks of 5 days with 16 half hour slots each
+        assertEquals(960, response.getCreated());
+        assertEquals(LocalTime.of(9, 0), response.getFirstStartTime().toLocalTime());
+        assertEquals(LocalTime.of(17, 0), response.getLastEndTime().toLocalTime());
+        ArgumentCaptor<List<Slot>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(slotRepository).saveAllAndFlush(inserted.capture());
+        assertTrue(inserted.getValue().stream().allMatch(s -> s.getStatus() == SlotStatus.AVAILABLE
+                && s.getStartTime().getDayOfWeek().getValue() <= 5));
+        verify(providerIntervalIndex, times(960)).overlaps(eq(1L), any(), any(), isNull());
+        ArgumentCaptor<SlotsCreatedEvent> event = ArgumentCaptor.forClass(SlotsCreatedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(960, event.getValue().slotIds().size());
+        verify(flashBookingService).refreshNew(1L, inserted.getValue());
+    }
+
+    @Test
+    void testAddSlotsFromTemplateRejectsOverlapBeforeInserting() {
+        when(userRepository.findByUsername("provider1")).thenReturn(Optional.of(provider));
+        when(config.getMinSlotDurationMinutes()).thenReturn(30);
+        when(config.getMaxSlotDurationMinutes()).thenReturn(180);
+        when(config.getSlotTemplateMaxSlots()).thenReturn(2000);
+        when(providerIntervalIndex.overlaps(eq(1L), any(), any(), isNull())).thenReturn(false, false, true);
+
+        assertThrows(IllegalStateException.class, () -> slotService.addSlotsFromTemplate(weekdayTemplate(1), "provider1"));
+        verify(slotRepository, never()).saveAllAndFlush(anyList());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testAddSlotsFromTemplateReportsDatabaseOverlapAsClash() {
+        when(userRepository.findByUsername("provider1")).thenReturn(Optional.of(provider));
+        when(config.getMinSlotDurationMinutes()).thenReturn(30);
+        when(config.getMaxSlotDurationMinutes()).thenReturn(180);
+        when(config.getSlotTemplateMaxSlots()).thenReturn(2000);
+        when(slotRepository.saveAllAndFlush(anyList())).thenThrow(new DataIntegrityViolationException("overlap",
+                new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> slotService.addSlotsFromTemplate(weekdayTemplate(1), "provider1"));
+        assertEquals("This provider already has a slot that overlaps with the given time range.", ex.getMessage());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testAddSlotsFromTemplateRejectsTooManySlots() {
+        when(userRepository.findByUsername("provider1")).thenReturn(Optional.of(provider));
+        when(config.getMinSlotDurationMinutes()).thenReturn(30);
+        when(config.getMaxSlotDurationMinutes()).thenReturn(180);
+        when(config.getSlotTemplateMaxSlots()).thenReturn(100);
+
+        assertThrows(IllegalStateException.class, () -> slotService.addSlotsFromTemplate(weekdayTemplate(52), "provider1"));
+        verify(slotRepository, never()).saveAllAndFlush(anyList());
+        verifyNoInteractions(providerIntervalIndex);
+    }
+
+    @Test
+    void testAddSlotsFromTemplateRejectsInvertedDay() {
+        SlotTemplateRequestDto template = weekdayTemplate(1);
+        template.setDayStart(LocalTime.of(17, 0));
+        template.setDayEnd(LocalTime.of(9, 0));
+        when(userRepository.findByUsername("provider1")).thenReturn(Optional.of(provider));
+        when(config.getMinSlotDurationMinutes()).thenReturn(30);
+        when(config.getMaxSlotDurationMinutes()).thenReturn(180);
+
+        assertThrows(IllegalStateException.class, () -> slotService.addSlotsFromTemplate(template, "provider1"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void cacheMissLoads() {
+        when(providerSlotCache.get(eq("provider1"), any()))
+                .thenAnswer(invocation -> ((Supplier<List<SlotResponseDto>>) invocation.getArgument(1)).get());
+    }
+
+    private SlotRow slotRow() {
+        return new SlotRow(10L, "Consult", slot.getStartTime(), slot.getEndTime(), SlotStatus.AVAILABLE,
+                1L, "provider1", "p@example.com", "Cardiology");
+    }
+
     @Test
     void testGetSlotsForProviderSuccess() {
+        cacheMissLoads();
         when(userRepository.findByUsername("provider1")).thenReturn(Optional.of(provider));
-        when(slotRepository.findByProviderId(1L)).thenReturn(List.of(slot));
+        when(slotRepository.findRowsByProviderId(1L)).thenReturn(List.of(slotRow()));
 
         List<SlotResponseDto> slots = slotService.getSlotsForProvider("provider1");
 
@@ -139,6 +382,7 @@ class SlotServiceTest {
 
     @Test
     void testGetSlotsForProvider_UserNotFound() {
+        cacheMissLoads();
         when(userRepository.findByUsername("provider1")).thenReturn(Optional.empty());
 
         assertThrows(UsernameNotFoundException.class, () -> slotService.getSlotsForProvider("provider1"));
@@ -146,7 +390,7 @@ class SlotServiceTest {
 
     @Test
     void testGetAllSlots() {
-        when(slotRepository.findAll()).thenReturn(List.of(slot));
+        when(slotRepository.findAllRows()).thenReturn(List.of(slotRow()));
 
         List<SlotResponseDto> slots = slotService.getAllSlots();
 
@@ -154,9 +398,33 @@ class SlotServiceTest {
         assertEquals("Cardiology", slots.get(0).getProviderSpecialization());
     }
 
+    @Test
+    void testFindAvailableSlotsUsesIndex() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 9, 0);
+        when(availabilityIndex.findRange("Cardiology", from, null, 20)).thenReturn(List.of(SlotRow.of(slot)));
+
+        List<SlotResponseDto> slots = slotService.findAvailableSlots(AvailabilitySearchRequestDto.builder()
+                .specialization("Cardiology")
+                .from(from)
+                .build());
+
+        assertEquals(1, slots.size());
+        assertEquals(10L, slots.get(0).getId());
+        verifyNoInteractions(slotRepository);
+    }
+
+    @Test
+    void testFindNextAvailableSlotRejectsEmptyWindow() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 9, 0);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> slotService.findNextAvailableSlot(
+                AvailabilitySearchRequestDto.builder().from(from).to(from).build()));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+    }
+
     @Test
     void testGetByIdFound() {
-        when(slotRepository.findById(10L)).thenReturn(Optional.of(slot));
+        when(slotSnapshotCache.get(10L)).thenReturn(Optional.of(SlotRow.of(slot)));
 
         Optional<SlotResponseDto> result = slotService.getById(10L);
 
@@ -167,7 +435,7 @@ class SlotServiceTest {
 
     @Test
     void testGetByIdNotFound() {
-        when(slotRepository.findById(99L)).thenReturn(Optional.empty());
+        when(slotSnapshotCache.get(99L)).thenReturn(Optional.empty());
         assertTrue(slotService.getById(99L).isEmpty());
     }
 
@@ -208,13 +476,38 @@ class SlotServiceTest {
 
         when(slotRepository.findById(10L)).thenReturn(Optional.of(slot));
         when(userRepository.findByUsername("provider1")).thenReturn(Optional.of(provider));
-        when(slotRepository.findByProviderUsername("provider1")).thenReturn(List.of(slot));
-        when(slotRepository.save(any(Slot.class))).thenReturn(slot);
+        when(providerIntervalIndex.overlaps(1L, request.getStartTime(), request.getEndTime(), 10L)).thenReturn(false);
+        when(slotRepository.saveAndFlush(any(Slot.class))).thenReturn(slot);
 
         SlotResponseDto updated = slotService.updateSlot(10L, "provider1", request);
 
         assertEquals("Updated", updated.getDescription());
         assertEquals("Cardiology", updated.getProviderSpecialization());
+        verifyNoInteractions(appointmentRepository);
+    }
+
+    @Test
+    void testUpdateBookedSlotAnnouncesAppointmentChange() {
+        slot.setStatus(SlotStatus.BOOKED);
+        SlotRequestDto request = new SlotRequestDto();
+        request.setDescription("Updated");
+        request.setStartTime(slot.getStartTime().plusHours(1));
+        request.setEndTime(slot.getEndTime().plusHours(1));
+        Appointment appointment = Appointment.builder()
+                .id(50L)
+                .slot(slot)
+                .user(User.builder().id(3L).username("user1").build())
+                .build();
+
+        when(slotRepository.findById(10L)).thenReturn(Optional.of(slot));
+        when(userRepository.findByUsername("provider1")).thenReturn(Optional.of(provider));
+        when(providerIntervalIndex.overlaps(1L, request.getStartTime(), request.getEndTime(), 10L)).thenReturn(false);
+        when(slotRepository.saveAndFlush(any(Slot.class))).thenReturn(slot);
+        when(appointmentRepository.findBySlotId(10L)).thenReturn(appointment);
+
+        slotService.updateSlot(10L, "provider1", request);
+
+        verify(eventPublisher).publishEvent(new AppointmentChangedEvent(50L, "user1", "provider1"));
     }
 
     @Test
@@ -247,23 +540,36 @@ class SlotServiceTest {
         when(slotRepository.findById(10L)).thenReturn(Optional.of(slot));
         when(userRepository.findByUsername("provider1")).thenReturn(Optional.of(provider));
 
-        Slot otherSlot = new Slot();
-        otherSlot.setId(20L);
-        otherSlot.setStartTime(slot.getStartTime());
-        otherSlot.setEndTime(slot.getEndTime());
-
-        when(slotRepository.findByProviderUsername("provider1")).thenReturn(List.of(otherSlot));
+        when(providerIntervalIndex.overlaps(1L, request.getStartTime(), request.getEndTime(), 10L)).thenReturn(true);
 
         assertThrows(IllegalStateException.class, () -> slotService.updateSlot(10L, "provider1", request));
     }
 
+    @Test
+    void testUpdateSlotOverlapRejectedByDatabase() {
+        SlotRequestDto request = new SlotRequestDto();
+        request.setDescription("Clashing slot");
+        request.setStartTime(slot.getStartTime());
+        request.setEndTime(slot.getEndTime());
+
+        when(slotRepository.findById(10L)).thenReturn(Optional.of(slot));
+        when(userRepository.findByUsername("provider1")).thenReturn(Optional.of(provider));
+        when(providerIntervalIndex.overlaps(1L, request.getStartTime(), request.getEndTime(), 10L)).thenReturn(false);
+        when(slotRepository.saveAndFlush(slot)).thenThrow(new DataIntegrityViolationException("overlap",
+                new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> slotService.updateSlot(10L, "provider1", request));
+        assertEquals("This update causes a time clash with an existing slot.", ex.getMessage());
+    }
+
 
 
 
     @Test
     void testGetSlotsForProviderWhenNoSlots() {
+        cacheMissLoads();
         when(userRepository.findByUsername("provider1")).thenReturn(Optional.of(provider));
-        when(slotRepository.findByProviderId(1L)).thenReturn(Collections.emptyList());
+        when(slotRepository.findRowsByProviderId(1L)).thenReturn(Collections.emptyList());
 
         List<SlotResponseDto> slots = slotService.getSlotsForProvider("provider1");
         assertTrue(slots.isEmpty());
@@ -0,0 +1,197 @@
+package com.smartappointment.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.smartappointment.config.AppConfigProperties;
+import com.smartappointment.event.SlotChangedEvent;
+import com.smartappointment.event.SlotsCreatedEvent;
+import com.smartappointment.repository.SlotRepository;
+import com.smartappointment.repository.projection.SlotRow;
+import com.smartappointment.util.enumerations.SlotStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SlotSnapshotCacheTest {
+
+    @Mock
+    private SlotRepository slotRepository;
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private SimpleMeterRegistry meterRegistry;
+    private SlotSnapshotCache slotSnapshotCache;
+    private SlotRow row;
+
+    @BeforeEach
+    void setup() {
+        AppConfigProperties config = new AppConfigProperties();
+        config.setSlotCacheMaxEntries(100);
+        config.setSlotCacheLocalTtlSeconds(30);
+        config.setSlotCacheRedisTtlSeconds(300);
+        meterRegistry = new SimpleMeterRegistry();
+        slotSnapshotCache = new SlotSnapshotCache(slotRepository, stringRedisTemplate, objectMapper, config,
+                meterRegistry, listenerContainer);
+        row = new SlotRow(10L, "Consult", LocalDateTime.of(2030, 1, 1, 9, 0), LocalDateTime.of(2030, 1, 1, 9, 30),
+                SlotStatus.AVAILABLE, 2L, "provider1", "provider1@clinic.com", "Cardiology");
+    }
+
+    private double count(String tier, String result) {
+        return meterRegistry.counter("cache.slot", "tier", tier, "result", result).count();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void missEverywhereThenStore(long stored) {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("cache:slot:10")).thenReturn(null);
+        when(valueOperations.get("cache:slot:gen:10")).thenReturn("4");
+        when(slotRepository.findRowById(10L)).thenReturn(Optional.of(row));
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of("cache:slot:10", "cache:slot:gen:10")),
+                eq("4"), anyString(), eq("300"))).thenReturn(stored);
+    }
+
+    @Test
+    void testListensForInvalidations() {
+        verify(listenerContainer).addMessageListener(slotSnapshotCache, new ChannelTopic(SlotSnapshotCache.INVALIDATION_CHANNEL));
+    }
+
+    @Test
+    void testMissLoadsOnceThenServesLocally() {
+        missEverywhereThenStore(1L);
+
+        assertEquals(row, slotSnapshotCache.get(10L).orElseThrow());
+        assertEquals(row, slotSnapshotCache.get(10L).orElseThrow());
+
+        verify(slotRepository, times(1)).findRowById(10L);
+        assertEquals(1, count("local", "hit"));
+        assertEquals(1, count("redis", "miss"));
+        assertEquals(1, meterRegistry.timer("cache.slot.age", "tier", "local").count());
+    }
+
+    @Test
+    void testRedisHitFillsLocalTier() throws Exception {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("cache:slot:10")).thenReturn(
+                objectMapper.writeValueAsString(new SlotSnapshotCache.CachedSlot(row, System.currentTimeMillis())));
+
+        assertEquals(row, slotSnapshotCache.get(10L).orElseThrow());
+        assertEquals(row, slotSnapshotCache.get(10L).orElseThrow());
+
+        verifyNoInteractions(slotRepository);
+        verify(valueOperations, times(1)).get("cache:slot:10");
+        assertEquals(1, count("redis", "hit"));
+        assertEquals(1, count("local", "hit"));
+    }
+
+    @Test
+    void testLostGenerationRaceIsNotCachedLocally() {
+        missEverywhereThenStore(0L);
+
+        slotSnapshotCache.get(10L);
+        slotSnapshotCache.get(10L);
+
+        verify(slotRepository, times(2)).findRowById(10L);
+        assertEquals(0, count("local", "hit"));
+    }
+
+    @Test
+    void testRedisFailureFallsBackToDatabase() {
+        when(stringRedisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+        when(slotRepository.findRowById(10L)).thenReturn(Optional.of(row));
+
+        assertEquals(row, slotSnapshotCache.get(10L).orElseThrow());
+        assertEquals(1, count("redis", "error"));
+    }
+
+    @Test
+    void testMissingSlotIsNotCached() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(slotRepository.findRowById(99L)).thenReturn(Optional.empty());
+
+        assertTrue(slotSnapshotCache.get(99L).isEmpty());
+        verify(stringRedisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void testSlotChangeEvictsBothTiersAndBroadcasts() {
+        missEverywhereThenStore(1L);
+        slotSnapshotCache.get(10L);
+
+        slotSnapshotCache.onSlotChanged(new SlotChangedEvent(10L, 2L, "provider1"));
+        slotSnapshotCache.get(10L);
+
+        verify(valueOperations).increment("cache:slot:gen:10");
+        verify(stringRedisTemplate).delete("cache:slot:10");
+        verify(stringRedisTemplate).convertAndSend(SlotSnapshotCache.INVALIDATION_CHANNEL, "10");
+        verify(slotRepository, times(2)).findRowById(10L);
+    }
+
+    @Test
+    void testRemoteInvalidationDropsLocalCopy() {
+        missEverywhereThenStore(1L);
+        slotSnapshotCache.get(10L);
+
+        slotSnapshotCache.onMessage(new DefaultMessage(
+                SlotSnapshotCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "10".getBytes(StandardCharsets.UTF_8)), null);
+        slotSnapshotCache.get(10L);
+
+        verify(slotRepository, times(2)).findRowById(10L);
+        assertEquals(1, meterRegistry.counter("cache.slot.evictions", "source", "remote").count());
+    }
+
+    @Test
+    void testCreatedSlotsGoOutAsOneBatchMessage() {
+        slotSnapshotCache.onSlotsCreated(new SlotsCreatedEvent(List.of(10L, 11L, 12L), 2L, "provider1"));
+
+        verify(stringRedisTemplate).convertAndSend(SlotSnapshotCache.INVALIDATION_CHANNEL, "2:10,11,12");
+        verifyNoMoreInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    void testBatchInvalidationDropsEverySlot() {
+        missEverywhereThenStore(1L);
+        slotSnapshotCache.get(10L);
+
+        slotSnapshotCache.onMessage(new DefaultMessage(
+                SlotSnapshotCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                SlotInvalidation.batch(2L, List.of(10L, 11L)).getBytes(StandardCharsets.UTF_8)), null);
+        slotSnapshotCache.get(10L);
+
+        verify(slotRepository, times(2)).findRowById(10L);
+        assertEquals(2, meterRegistry.counter("cache.slot.evictions", "source", "remote").count());
+    }
+
+    @Test
+    void testInvalidationMessageFormats() {
+        assertEquals(new SlotInvalidation(null, List.of(42L)), SlotInvalidation.parse("42".getBytes(StandardCharsets.UTF_8)));
+        SlotInvalidation batch = SlotInvalidation.parse(SlotInvalidation.batch(7L, List.of(42L, 43L)).getBytes(StandardCharsets.UTF_8));
+        assertTrue(batch.isBatch());
+        assertEquals(7L, batch.providerId());
+        assertEquals(List.of(42L, 43L), batch.slotIds());
+    }
+}
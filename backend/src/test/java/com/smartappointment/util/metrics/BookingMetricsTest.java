@@ -0,0 +1,75 @@
+package com.smartappointment.util.metrics;
+
+import com.smartappointment.exception.BookingRejectedException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookingMetrics bookingMetrics;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        bookingMetrics = new BookingMetrics(meterRegistry);
+    }
+
+    private long operationCount(String outcome) {
+        Timer timer = meterRegistry.find("booking.operation").tags("operation", "create", "outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Test
+    void testSuccessfulOperationIsTaggedSuccess() {
+        assertEquals("ok", bookingMetrics.operation("create", () -> "ok"));
+
+        assertEquals(1, operationCount(BookingMetrics.SUCCESS));
+    }
+
+    @Test
+    void testRejectionIsTaggedWithItsOutcome() {
+        assertThrows(BookingRejectedException.class, () -> bookingMetrics.operation("create", () -> {
+            throw new BookingRejectedException(BookingRejectedException.CLASH, "clash");
+        }));
+        assertThrows(EntityNotFoundException.class, () -> bookingMetrics.operation("create", () -> {
+            throw new EntityNotFoundException("Slot not found");
+        }));
+
+        assertEquals(1, operationCount(BookingRejectedException.CLASH));
+        assertEquals(1, operationCount(BookingMetrics.NOT_FOUND));
+        assertEquals(0, operationCount(BookingMetrics.SUCCESS));
+    }
+
+    private long phaseCount(String outcome) {
+        Timer timer = meterRegistry.find("booking.phase").tags("operation", "create", "phase", "save", "outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Test
+    void testPhaseTimerRecordsEvenWhenPhaseFails() {
+        assertThrows(IllegalStateException.class, () -> bookingMetrics.phase("create", "save", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(1, phaseCount(BookingMetrics.ERROR));
+        assertEquals(0, phaseCount(BookingMetrics.SUCCESS));
+    }
+
+    @Test
+    void testPhaseIsTaggedWithItsOutcome() {
+        assertEquals("ok", bookingMetrics.phase("create", "save", () -> "ok"));
+        bookingMetrics.phase("create", "save", () -> {});
+        assertThrows(BookingRejectedException.class, () -> bookingMetrics.phase("create", "save", () -> {
+            throw new BookingRejectedException(BookingRejectedException.CLASH, "clash");
+        }));
+
+        assertEquals(2, phaseCount(BookingMetrics.SUCCESS));
+        assertEquals(1, phaseCount(BookingRejectedException.CLASH));
+    }
+}
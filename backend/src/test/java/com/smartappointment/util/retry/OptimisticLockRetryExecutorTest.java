@@ -0,0 +1,73 @@
+package com.smartappointment.util.retry;
+
+import com.smartappointment.config.AppConfigProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticLockRetryExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private OptimisticLockRetryExecutor retryExecutor;
+
+    @BeforeEach
+    void setup() {
+        AppConfigProperties config = new AppConfigProperties();
+        config.setOptimisticLockMaxAttempts(3);
+        config.setOptimisticLockBackoffMillis(1);
+        config.setOptimisticLockMaxBackoffMillis(4);
+        meterRegistry = new SimpleMeterRegistry();
+        retryExecutor = new OptimisticLockRetryExecutor(meterRegistry, config);
+    }
+
+    @Test
+    void testRetriesUntilSuccess() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retryExecutor.execute("updateSlot", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Slot", 10L);
+            }
+            return "updated";
+        });
+
+        assertEquals("updated", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, meterRegistry.counter("optimistic.lock.conflicts", "operation", "updateSlot").count());
+        assertEquals(2, meterRegistry.counter("optimistic.lock.retries", "operation", "updateSlot").count());
+    }
+
+    @Test
+    void testGivesUpWithConflictAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () ->
+                retryExecutor.run("deleteAppointment", () -> {
+                    attempts.incrementAndGet();
+                    throw new ObjectOptimisticLockingFailureException("Appointment", 200L);
+                }));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        assertEquals(3, attempts.get());
+        assertEquals(1, meterRegistry.counter("optimistic.lock.exhausted", "operation", "deleteAppointment").count());
+    }
+
+    @Test
+    void testOtherExceptionsAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> retryExecutor.execute("updateSlot", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("This update causes a time clash with an existing slot.");
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+}
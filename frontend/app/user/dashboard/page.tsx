@@ -35,6 +35,7 @@ interface Slot {
 export default function UserDashboard() {
   const [appointments, setAppointments] = useState<Appointment[]>([])
   const [slots, setSlots] = useState<Slot[]>([])
+  const [nextCursor, setNextCursor] = useState<string | null>(null)
   const [queueSizes, setQueueSizes] = useState<{ [key: number]: number }>({})
   const [searchId, setSearchId] = useState("")
   const [loading, setLoading] = useState(true)
@@ -62,12 +63,16 @@ export default function UserDashboard() {
     }
   }
 
-  const fetchSlots = async () => {
+  const fetchSlots = async (cursor?: string) => {
     try {
-      const response = await api.get("/slots/getAllSlots")
-      setSlots(response.data)
+      const response = await api.get("/slots/search", {
+        params: { status: "AVAILABLE,HELD,BOOKED", size: 20, cursor },
+      })
+      const page: Slot[] = response.data.slots
+      setSlots(cursor ? (previous) => [...previous, ...page] : page)
+      setNextCursor(response.data.nextCursor)
       const sizes = await Promise.all(
-        response.data.map(async (slot: Slot) => {
+        page.map(async (slot: Slot) => {
           const res = await api.get(`/queue/${slot.id}`)
           return { id: slot.id, size: res.data }
         })
@@ -76,7 +81,7 @@ export default function UserDashboard() {
       sizes.forEach(({ id, size }) => {
         sizeMap[id] = size
       })
-      setQueueSizes(sizeMap)
+      setQueueSizes(cursor ? (previous) => ({ ...previous, ...sizeMap }) : sizeMap)
     } catch (error: any) {
       toast({
         title: "Error",
@@ -284,6 +289,11 @@ export default function UserDashboard() {
                     </CardContent>
                   </Card>
                 ))}
+              {nextCursor && (
+                <Button variant="outline" className="w-full" onClick={() => fetchSlots(nextCursor)}>
+                  Load more slots
+                </Button>
+              )}
             </div>
           </div>
         </div>